@@ -0,0 +1,23 @@
+package com.eventbooking.bookingservice.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.common.event.EventBatchLoader;
+
+@Configuration
+public class EventBatchConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public EventBatchLoader<EventDTO> eventBatchLoader(
+            WebClient.Builder webClientBuilder,
+            @Value("${booking.event-batch.service-token:}") String serviceToken,
+            @Value("${booking.event-batch.window-ms:5}") long windowMillis,
+            @Value("${booking.event-batch.max-size:100}") int maxBatchSize) {
+        return new EventBatchLoader<>(webClientBuilder, EventDTO.class, EventDTO::getId, serviceToken, windowMillis,
+                maxBatchSize);
+    }
+}
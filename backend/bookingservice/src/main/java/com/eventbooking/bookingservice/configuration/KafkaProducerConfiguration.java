@@ -0,0 +1,21 @@
+package com.eventbooking.bookingservice.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.eventbooking.common.kafka.PayloadCodec;
+
+@Configuration
+public class KafkaProducerConfiguration {
+
+    /**
+     * Codec the outbox stores payloads with, the same one the producer's
+     * value serializer uses.
+     */
+    @Bean
+    public PayloadCodec payloadCodec(
+            @Value("${spring.kafka.producer.properties." + PayloadCodec.TYPE_MAPPING + "}") String typeMapping) {
+        return PayloadCodec.forTypeMapping(typeMapping);
+    }
+}
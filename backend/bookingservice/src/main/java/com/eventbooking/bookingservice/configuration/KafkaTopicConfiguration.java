@@ -1,30 +1,53 @@
 package com.eventbooking.bookingservice.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 public class KafkaTopicConfiguration {
+    /**
+     * Messages are keyed by booking, group or event ID, so the messages of one
+     * key stay in order on one partition while the partitions are consumed in
+     * parallel. Raising the count moves existing keys to other partitions.
+     */
+    @Value("${booking.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic BookingCreatedTopicCreation() {
-        return TopicBuilder.name("BookingCreated").build();
+        return TopicBuilder.name("BookingCreated").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic GroupBookingCreatedTopicCreation() {
+        return TopicBuilder.name("GroupBookingCreated").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic BookingCancelledTopicCreation() {
-        return TopicBuilder.name("BookingCancelled").build();
+        return TopicBuilder.name("BookingCancelled").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic BookingExpiredTopicCreation() {
+        return TopicBuilder.name("BookingExpired").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic BookingRefundDueTopicCreation() {
+        return TopicBuilder.name("BookingRefundDue").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic EventBookingsCancelledTopicCreation() {
-        return TopicBuilder.name("EventBookingsCancelled").build();
+        return TopicBuilder.name("EventBookingsCancelled").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic EventUpdatedBookingsTopicCreation() {
-        return TopicBuilder.name("EventUpdatedBookings").build();
+        return TopicBuilder.name("EventUpdatedBookings").partitions(partitions).build();
     }
 }
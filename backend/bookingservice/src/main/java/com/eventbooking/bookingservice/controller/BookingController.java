@@ -1,11 +1,18 @@
 package com.eventbooking.bookingservice.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,16 +23,32 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.dto.BookingPageDTO;
+import com.eventbooking.bookingservice.dto.BookingPrerequisitesDTO;
+import com.eventbooking.bookingservice.dto.BookingStatsDTO;
 import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.bookingservice.dto.GroupBookingDTO;
+import com.eventbooking.bookingservice.dto.WaitlistEntryDTO;
+import com.eventbooking.bookingservice.model.IdempotencyRecord;
+import com.eventbooking.bookingservice.service.BookingExportService;
 import com.eventbooking.bookingservice.service.BookingService;
+import com.eventbooking.bookingservice.service.BookingStatsService;
+import com.eventbooking.bookingservice.service.IdempotencyService;
+import com.eventbooking.bookingservice.service.IdempotencyService.IdempotentRequest;
 import com.eventbooking.bookingservice.service.ValidationService;
+import com.eventbooking.bookingservice.service.WaitlistService;
 import com.eventbooking.bookingservice.util.JwtUtil;
 
 @RestController
 @RequestMapping("/api")
 public class BookingController {
+    private static final String BOOKING_ENDPOINT = "POST /api/events/{eventID}/bookings";
+
+    private static final String GROUP_BOOKING_ENDPOINT = "POST /api/events/{eventID}/bookings/group";
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -35,27 +58,71 @@ public class BookingController {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private BookingStatsService bookingStatsService;
+
+    @Autowired
+    private BookingExportService bookingExportService;
+
+    @Value("${booking.pagination.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${booking.pagination.default-limit:100}")
+    private int defaultPageLimit;
+
     @GetMapping("/account/bookings")
     public ResponseEntity<?> getUserBookings(
             @RequestHeader("authorization") String authHeader,
-            @RequestParam(required = false) UUID eventID) {
+            @RequestParam(required = false) UUID eventID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         if (!jwtUtil.isAuthenticated(authHeader))
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
 
+        if (limit != null && (limit < 1 || limit > maxPageLimit))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Limit must be between 1 and " + maxPageLimit);
+
+        // Every response is a bounded page, further bookings are fetched with
+        // the cursor of the X-Next-Cursor header
+        if (limit == null)
+            limit = defaultPageLimit;
+
         UUID userID = jwtUtil.extractUserID(authHeader);
 
-        List<BookingDTO> bookings = bookingService.getUserBookings(userID, eventID);
+        BookingPageDTO bookings = null;
+
+        try {
+            bookings = bookingService.getUserBookings(userID, eventID, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
 
-        return ResponseEntity.status(HttpStatus.OK).body(bookings);
+        return toPageResponse(bookings);
     }
 
     @GetMapping("/events/{eventID}/bookings")
     public ResponseEntity<?> getEventBookings(
             @RequestHeader("authorization") String authHeader,
-            @PathVariable UUID eventID) {
+            @PathVariable UUID eventID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         if (!jwtUtil.isAuthenticated(authHeader))
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
 
+        if (limit != null && (limit < 1 || limit > maxPageLimit))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Limit must be between 1 and " + maxPageLimit);
+
+        // Every response is a bounded page, further bookings are fetched with
+        // the cursor of the X-Next-Cursor header
+        if (limit == null)
+            limit = defaultPageLimit;
+
         EventDTO event = null;
 
         try {
@@ -70,26 +137,121 @@ public class BookingController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body("You are not authorized to view this event's bookings");
 
-        List<BookingDTO> bookings = bookingService.getEventBookings(eventID);
-        return ResponseEntity.status(HttpStatus.OK).body(bookings);
+        BookingPageDTO bookings = null;
+
+        try {
+            bookings = bookingService.getEventBookings(eventID, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+
+        return toPageResponse(bookings);
+    }
+
+    @GetMapping("/events/{eventID}/bookings/export")
+    public ResponseEntity<StreamingResponseBody> exportEventBookings(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID,
+            @RequestParam(defaultValue = "json") String format) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return streamMessage(HttpStatus.UNAUTHORIZED, "You must be logged in to do this operation!");
+
+        BookingExportService.Format exportFormat = null;
+
+        try {
+            exportFormat = BookingExportService.Format.fromName(format);
+        } catch (IllegalArgumentException e) {
+            return streamMessage(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        EventDTO event = null;
+
+        try {
+            event = validationService.getEventDetails(eventID);
+        } catch (WebClientResponseException e) {
+            return streamMessage(HttpStatus.NOT_FOUND, "Event not found");
+        }
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        if (!event.getOrganizerID().equals(userID) && !jwtUtil.isAuthorized(authHeader, List.of("ADMIN")))
+            return streamMessage(HttpStatus.FORBIDDEN, "You are not authorized to view this event's bookings");
+
+        BookingExportService.Format bodyFormat = exportFormat;
+        StreamingResponseBody body = outputStream -> bookingExportService.exportEventBookings(eventID, bodyFormat,
+                outputStream);
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bookings-" + eventID + "." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping("/events/{eventID}/bookings/stats")
+    public ResponseEntity<?> getEventBookingStats(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
+
+        EventDTO event = null;
+
+        try {
+            event = validationService.getEventDetails(eventID);
+        } catch (WebClientResponseException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Event not found");
+        }
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        if (!event.getOrganizerID().equals(userID) && !jwtUtil.isAuthorized(authHeader, List.of("ADMIN")))
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("You are not authorized to view this event's booking stats");
+
+        BookingStatsDTO stats = bookingStatsService.getEventStats(eventID);
+
+        return ResponseEntity.status(HttpStatus.OK).body(stats);
     }
 
     @PostMapping("/events/{eventID}/bookings")
     public ResponseEntity<?> createEventBooking(
             @RequestHeader("authorization") String authHeader,
             @PathVariable UUID eventID,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody BookingDTO bookingDTO) {
         if (!jwtUtil.isAuthenticated(authHeader))
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
 
-        EventDTO event = null;
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 255))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Idempotency-Key must be between 1 and 255 characters");
+
+        // A retried request gets the original response without booking again
+        IdempotentRequest idempotentRequest = idempotencyService.describe(idempotencyKey, BOOKING_ENDPOINT,
+                jwtUtil.extractUserID(authHeader), eventID, bookingDTO);
+
+        if (idempotentRequest != null) {
+            IdempotencyRecord record = idempotencyService.findRecord(idempotencyKey).orElse(null);
+
+            if (record != null)
+                return replayResponse(record, idempotentRequest);
+        }
+
+        BookingPrerequisitesDTO prerequisites = null;
 
         try {
-            event = validationService.getEventDetails(eventID);
+            prerequisites = validationService.getBookingPrerequisites(eventID, authHeader);
         } catch (WebClientResponseException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Event not found");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         }
 
+        EventDTO event = prerequisites.getEvent();
+
         UUID userID = jwtUtil.extractUserID(authHeader);
 
         bookingDTO.setUserID(userID);
@@ -97,16 +259,171 @@ public class BookingController {
         bookingDTO.setPrice(event.getPrice());
 
         try {
-            validationService.isBookingValid(bookingDTO, event, authHeader);
+            validationService.isBookingValid(bookingDTO, event, prerequisites.getUserBalance());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
         }
 
-        BookingDTO booking = bookingService.addBooking(bookingDTO, event, userID);
+        BookingDTO booking = null;
+
+        try {
+            booking = bookingService.addBooking(bookingDTO, event, userID, idempotentRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key won, answer with its response
+            IdempotencyRecord record = idempotentRequest == null ? null
+                    : idempotencyService.findRecord(idempotencyKey).orElse(null);
+
+            if (record == null)
+                throw e;
+
+            return replayResponse(record, idempotentRequest);
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body(booking);
     }
 
+    @PostMapping("/events/{eventID}/bookings/group")
+    public ResponseEntity<?> createGroupBooking(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody GroupBookingDTO groupBookingDTO) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
+
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 255))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Idempotency-Key must be between 1 and 255 characters");
+
+        IdempotentRequest idempotentRequest = idempotencyService.describe(idempotencyKey, GROUP_BOOKING_ENDPOINT,
+                jwtUtil.extractUserID(authHeader), eventID, groupBookingDTO);
+
+        if (idempotentRequest != null) {
+            IdempotencyRecord record = idempotencyService.findRecord(idempotencyKey).orElse(null);
+
+            if (record != null)
+                return replayResponse(record, idempotentRequest);
+        }
+
+        BookingPrerequisitesDTO prerequisites = null;
+
+        try {
+            prerequisites = validationService.getBookingPrerequisites(eventID, authHeader);
+        } catch (WebClientResponseException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Event not found");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+
+        EventDTO event = prerequisites.getEvent();
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        List<BookingDTO> bookings = groupBookingDTO.getBookings();
+
+        if (bookings != null) {
+            for (BookingDTO bookingDTO : bookings) {
+                bookingDTO.setUserID(userID);
+                bookingDTO.setEventID(eventID);
+                bookingDTO.setPrice(event.getPrice());
+            }
+        }
+
+        GroupBookingDTO groupBooking = null;
+
+        try {
+            validationService.isGroupBookingValid(bookings, event, prerequisites.getUserBalance());
+            groupBooking = bookingService.addGroupBooking(bookings, event, userID, idempotentRequest);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord record = idempotentRequest == null ? null
+                    : idempotencyService.findRecord(idempotencyKey).orElse(null);
+
+            if (record == null)
+                throw e;
+
+            return replayResponse(record, idempotentRequest);
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(groupBooking);
+    }
+
+    @GetMapping("/events/{eventID}/waitlist")
+    public ResponseEntity<?> getWaitlistEntry(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        WaitlistEntryDTO entry = waitlistService.getWaitlistEntry(eventID, userID).orElse(null);
+
+        if (entry == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("You are not on the waitlist of this event");
+
+        return ResponseEntity.status(HttpStatus.OK).body(entry);
+    }
+
+    @PostMapping("/events/{eventID}/waitlist")
+    public ResponseEntity<?> joinWaitlist(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID,
+            @RequestBody BookingDTO bookingDTO) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
+
+        BookingPrerequisitesDTO prerequisites = null;
+
+        try {
+            prerequisites = validationService.getBookingPrerequisites(eventID, authHeader);
+        } catch (WebClientResponseException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Event not found");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+
+        EventDTO event = prerequisites.getEvent();
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        bookingDTO.setUserID(userID);
+        bookingDTO.setEventID(eventID);
+        bookingDTO.setPrice(event.getPrice());
+
+        WaitlistEntryDTO entry = null;
+
+        try {
+            validationService.isBookingValid(bookingDTO, event, prerequisites.getUserBalance());
+            entry = waitlistService.joinWaitlist(bookingDTO, event, userID);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Invalid booking details: You are already on the waitlist of this event");
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+    }
+
+    @DeleteMapping("/events/{eventID}/waitlist")
+    public ResponseEntity<?> leaveWaitlist(
+            @RequestHeader("authorization") String authHeader,
+            @PathVariable UUID eventID) {
+        if (!jwtUtil.isAuthenticated(authHeader))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("You must be logged in to do this operation!");
+
+        UUID userID = jwtUtil.extractUserID(authHeader);
+
+        if (!waitlistService.leaveWaitlist(eventID, userID))
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("You are not on the waitlist of this event");
+
+        return ResponseEntity.status(HttpStatus.OK).body("You left the waitlist of this event");
+    }
+
     @GetMapping("/bookings/{bookingID}")
     public ResponseEntity<?> getBooking(
             @RequestHeader("authorization") String authHeader,
@@ -167,12 +484,53 @@ public class BookingController {
                     .body("You are not authorized to cancel this booking");
 
         try {
-            validationService.canCancelBooking(booking, userID);
+            validationService.canCancelBooking(booking, event);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
+        }
+
+        BookingDTO bookingDTO = null;
+
+        try {
+            bookingDTO = bookingService.cancelBooking(bookingID).orElse(null);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid booking details: " + e.getMessage());
         }
 
-        BookingDTO bookingDTO = bookingService.cancelBooking(bookingID);
+        if (bookingDTO == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Booking not found");
+
         return ResponseEntity.status(HttpStatus.OK).body(bookingDTO);
     }
+
+    // Returns the page as a plain list, the cursor of the next page is sent in
+    // the X-Next-Cursor header so existing clients keep working
+    private ResponseEntity<?> toPageResponse(BookingPageDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+
+        if (page.getNextCursor() != null)
+            response.header("X-Next-Cursor", page.getNextCursor());
+
+        return response.body(page.getBookings());
+    }
+
+    /**
+     * Replays the stored response of a retried request. A key reused on
+     * another endpoint, by another user or with a different body is refused.
+     */
+    private ResponseEntity<?> replayResponse(IdempotencyRecord record, IdempotentRequest request) {
+        if (!idempotencyService.isSameRequest(record, request))
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("Idempotency-Key was already used for a different request");
+
+        return ResponseEntity.status(record.getResponseStatus())
+                .header("Idempotent-Replayed", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(record.getResponseBody());
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamMessage(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
 }
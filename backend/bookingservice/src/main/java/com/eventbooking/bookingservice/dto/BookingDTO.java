@@ -27,6 +27,7 @@ public class BookingDTO {
 
     private UUID userID;
     private UUID eventID;
+    private UUID groupID;
 
     private BigDecimal price;
 
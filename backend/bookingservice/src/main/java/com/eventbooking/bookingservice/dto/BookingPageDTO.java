@@ -0,0 +1,19 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingPageDTO {
+    private List<BookingDTO> bookings;
+
+    // Opaque cursor of the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingPrerequisitesDTO {
+    private EventDTO event;
+
+    // Null when paymentservice did not answer in time
+    private BigDecimal userBalance;
+}
@@ -0,0 +1,29 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatsDTO {
+    private UUID eventID;
+
+    private long pending;
+    private long confirmed;
+    private long cancelled;
+    private long rejected;
+
+    // Total price of the confirmed bookings
+    private BigDecimal revenue;
+
+    // Bookings made per hour, oldest hour first
+    private List<HourlyBookingsDTO> hourlyBookings;
+}
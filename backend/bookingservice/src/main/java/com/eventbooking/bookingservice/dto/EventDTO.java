@@ -21,7 +21,8 @@ public class EventDTO {
     private String title;
     private String description;
 
-    private String category;
+    private UUID categoryID;
+    private String categoryName;
 
     private BigDecimal price;
 
@@ -40,4 +41,6 @@ public class EventDTO {
     private UUID organizerID;
 
     private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
 }
\ No newline at end of file
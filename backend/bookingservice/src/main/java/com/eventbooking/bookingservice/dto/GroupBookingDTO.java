@@ -0,0 +1,29 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Several bookings of one event bought together. They are paid for with one
+ * payment of totalPrice and are confirmed or rejected together.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupBookingDTO {
+    private UUID id;
+
+    private UUID userID;
+    private UUID eventID;
+
+    private BigDecimal totalPrice;
+
+    private List<BookingDTO> bookings;
+}
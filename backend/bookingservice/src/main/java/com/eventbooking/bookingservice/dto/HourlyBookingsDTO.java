@@ -0,0 +1,19 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HourlyBookingsDTO {
+    // Start of the hour
+    private LocalDateTime hour;
+
+    private long bookings;
+}
@@ -0,0 +1,31 @@
+package com.eventbooking.bookingservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntryDTO {
+    private UUID id;
+
+    private UUID eventID;
+    private UUID userID;
+
+    private String fullName;
+    private String email;
+
+    private BigDecimal price;
+
+    // Number of users ahead in the queue, 0 means next in line
+    private long position;
+
+    private LocalDateTime createdAt;
+}
@@ -37,6 +37,10 @@ public class Booking {
     private UUID userID;
     private UUID eventID;
 
+    // Shared by the bookings of one group booking, null for single bookings
+    @Column(name = "group_id")
+    private UUID groupID;
+
     private BigDecimal price;
 
     @Enumerated(EnumType.STRING)
@@ -45,4 +49,12 @@ public class Booking {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // Seat lease the booking's seat was taken from, null if it was reserved directly
+    @Column(name = "lease_id")
+    private UUID leaseID;
+
+    // Deadline for the payment of a pending booking, after which its seat is released
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.eventbooking.bookingservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The fields of an event that bookings need, as last published by
+ * eventservice. updated_at is the event's own modification time and decides
+ * which of two out-of-order changes wins.
+ */
+@Entity
+@Table(name = "event_snapshot")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventSnapshot {
+    @Id
+    @Column(name = "event_id")
+    private UUID eventID;
+
+    @Column(name = "status", nullable = false)
+    private String status;
+
+    @Column(name = "capacity", nullable = false)
+    private Integer capacity;
+
+    @Column(name = "start_date_time", nullable = false)
+    private LocalDateTime startDateTime;
+
+    @Column(name = "price", nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "organizer_id", nullable = false)
+    private UUID organizerID;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
@@ -0,0 +1,52 @@
+package com.eventbooking.bookingservice.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The response of a request sent with an Idempotency-Key header, with the
+ * endpoint and a hash of the request it answered. A key is only replayed for
+ * the same request, reusing it for anything else is refused.
+ */
+@Entity
+@Table(name = "idempotency_key")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userID;
+
+    @Column(name = "event_id", nullable = false)
+    private UUID eventID;
+
+    // Null for keys stored before requests were hashed
+    @Column(name = "endpoint")
+    private String endpoint;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "response_status", nullable = false)
+    private int responseStatus;
+
+    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,61 @@
+package com.eventbooking.bookingservice.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A Kafka message waiting to be published. Rows are written in the same
+ * transaction as the state change they describe and relayed to Kafka later,
+ * in sequence number order.
+ */
+@Entity
+@Table(name = "outbox_event")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "outbox_event_id")
+    private UUID id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    @Column(name = "payload_type", nullable = false)
+    private String payloadType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    // Assigned by the database when the row is inserted
+    @Column(name = "sequence_number", insertable = false, updatable = false)
+    private Long sequenceNumber;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -0,0 +1,41 @@
+package com.eventbooking.bookingservice.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-event seat counter. A seat is taken with a single conditional UPDATE on
+ * this row, so capacity checks never have to count the booking table.
+ */
+@Entity
+@Table(name = "seat_inventory")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatInventory {
+    @Id
+    @Column(name = "event_id")
+    private UUID eventID;
+
+    @Column(name = "capacity", nullable = false)
+    private Integer capacity;
+
+    @Column(name = "reserved", nullable = false)
+    private Integer reserved;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
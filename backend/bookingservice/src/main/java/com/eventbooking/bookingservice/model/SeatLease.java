@@ -0,0 +1,51 @@
+package com.eventbooking.bookingservice.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A block of an event's seats taken out of the seat counter by one booking
+ * instance, which hands them out from memory. The instance renews expires_at
+ * while it is alive; an expired lease is released by any instance.
+ */
+@Entity
+@Table(name = "seat_lease")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "lease_id")
+    private UUID id;
+
+    @Column(name = "event_id", nullable = false)
+    private UUID eventID;
+
+    @Column(name = "instance_id", nullable = false)
+    private UUID instanceID;
+
+    @Column(name = "seats", nullable = false)
+    private Integer seats;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
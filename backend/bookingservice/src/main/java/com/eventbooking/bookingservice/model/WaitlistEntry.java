@@ -0,0 +1,50 @@
+package com.eventbooking.bookingservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user waiting for a seat of a sold-out event. The entry holds the booking
+ * details, so it can be turned into a booking without the user.
+ */
+@Entity
+@Table(name = "waitlist_entry")
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "waitlist_entry_id")
+    private UUID id;
+
+    @Column(name = "event_id", nullable = false)
+    private UUID eventID;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userID;
+
+    private String fullName;
+    private String email;
+
+    private BigDecimal price;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,11 +1,15 @@
 package com.eventbooking.bookingservice.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import com.eventbooking.bookingservice.dto.BookingDTO;
 import com.eventbooking.bookingservice.model.Booking;
 
 public interface BookingRepository extends JpaRepository<Booking, UUID> {
@@ -14,4 +18,52 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
 
     @Query(value = "SELECT COALESCE(COUNT(booking_id), 0) FROM booking WHERE eventID = ?1 AND (status = 'CONFIRMED' OR status = 'PENDING')", nativeQuery = true)
     Long getParticipantCount(UUID eventID);
+
+    @Query(value = "SELECT COUNT(*) FROM booking WHERE lease_id = ?1", nativeQuery = true)
+    long countLeaseBookings(UUID leaseID);
+
+    /*
+     * Keyset pages ordered by (createdAt, id) descending. The "After" variants
+     * continue after the last booking of the previous page. Rows are projected
+     * straight into DTOs, so no entities are loaded into the persistence context.
+     */
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.eventID = :eventID " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDTO> getEventBookingsPage(UUID eventID, Limit limit);
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.eventID = :eventID " +
+            "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDTO> getEventBookingsPageAfter(UUID eventID, LocalDateTime createdAt, UUID id, Limit limit);
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.userID = :userID " +
+            "AND (:eventID IS NULL OR b.eventID = :eventID) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDTO> getUserBookingsPage(UUID userID, UUID eventID, Limit limit);
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.userID = :userID " +
+            "AND (:eventID IS NULL OR b.eventID = :eventID) " +
+            "AND (b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookingDTO> getUserBookingsPageAfter(UUID userID, UUID eventID, LocalDateTime createdAt, UUID id,
+            Limit limit);
+
+    /*
+     * Bookings read to settle their payments. They are projected into DTOs so
+     * that nothing in the persistence context can be flushed over a concurrent
+     * status change, the guarded status update is the only write.
+     */
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.id IN :ids")
+    List<BookingDTO> getBookings(Collection<UUID> ids);
+
+    @Query("SELECT new com.eventbooking.bookingservice.dto.BookingDTO(b.id, b.fullName, b.email, b.userID, " +
+            "b.eventID, b.groupID, b.price, b.status, b.createdAt) FROM Booking b WHERE b.groupID IN :groupIDs")
+    List<BookingDTO> getGroupBookings(Collection<UUID> groupIDs);
 }
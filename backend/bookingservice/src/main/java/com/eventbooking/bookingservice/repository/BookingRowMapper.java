@@ -0,0 +1,36 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.model.BookingStatus;
+
+/**
+ * Maps raw booking rows to DTOs for the JDBC queries that bypass JPA. Expects
+ * the columns listed in {@link #COLUMNS}.
+ */
+public class BookingRowMapper implements RowMapper<BookingDTO> {
+    public static final String COLUMNS = "booking_id, full_name, email, price, userid, eventid, group_id, status, created_at";
+
+    @Override
+    public BookingDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+
+        return BookingDTO.builder()
+                .id(rs.getObject("booking_id", UUID.class))
+                .fullName(rs.getString("full_name"))
+                .email(rs.getString("email"))
+                .price(rs.getBigDecimal("price"))
+                .userID(rs.getObject("userid", UUID.class))
+                .eventID(rs.getObject("eventid", UUID.class))
+                .groupID(rs.getObject("group_id", UUID.class))
+                .status(BookingStatus.valueOf(rs.getString("status")))
+                .createdAt(createdAt == null ? null : createdAt.toLocalDateTime())
+                .build();
+    }
+}
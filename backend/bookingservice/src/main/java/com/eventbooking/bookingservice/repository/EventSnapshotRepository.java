@@ -0,0 +1,31 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.EventSnapshot;
+
+public interface EventSnapshotRepository extends JpaRepository<EventSnapshot, UUID> {
+    /**
+     * Inserts or replaces the snapshot of an event, unless the stored one is
+     * newer. Changes of an event arrive on several topics and through HTTP
+     * lookups, so they are not guaranteed to be applied in order.
+     *
+     * @return 1 if the snapshot was written, 0 if a newer one was kept
+     */
+    @Modifying
+    @Query(value = "INSERT INTO event_snapshot (event_id, status, capacity, start_date_time, price, organizer_id, " +
+            "updated_at, synced_at) VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, NOW()) " +
+            "ON CONFLICT (event_id) DO UPDATE SET status = EXCLUDED.status, capacity = EXCLUDED.capacity, " +
+            "start_date_time = EXCLUDED.start_date_time, price = EXCLUDED.price, " +
+            "organizer_id = EXCLUDED.organizer_id, updated_at = EXCLUDED.updated_at, synced_at = EXCLUDED.synced_at " +
+            "WHERE event_snapshot.updated_at IS NULL OR EXCLUDED.updated_at IS NULL " +
+            "OR event_snapshot.updated_at <= EXCLUDED.updated_at", nativeQuery = true)
+    int upsertSnapshot(UUID eventID, String status, int capacity, LocalDateTime startDateTime, BigDecimal price,
+            UUID organizerID, LocalDateTime updatedAt);
+}
@@ -0,0 +1,27 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.IdempotencyRecord;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    /**
+     * Plain insert, so a concurrent request with the same key waits for the
+     * first one and then fails on the primary key instead of booking twice.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_key (idempotency_key, user_id, event_id, endpoint, request_hash, " +
+            "response_status, response_body, created_at) VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, NOW())",
+            nativeQuery = true)
+    int insertRecord(String key, UUID userID, UUID eventID, String endpoint, String requestHash, int responseStatus,
+            String responseBody);
+
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_key WHERE created_at < ?1", nativeQuery = true)
+    int deleteCreatedBefore(LocalDateTime createdAt);
+}
@@ -0,0 +1,35 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.OutboxEvent;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+    @Modifying
+    @Query(value = "UPDATE outbox_event SET sent_at = NOW() WHERE outbox_event_id IN (?1)", nativeQuery = true)
+    int markSent(List<UUID> ids);
+
+    /**
+     * Gives claimed messages back to the relay, for when publishing them
+     * failed.
+     */
+    @Modifying
+    @Query(value = "UPDATE outbox_event SET claimed_until = NULL WHERE outbox_event_id IN (?1)", nativeQuery = true)
+    int releaseClaims(List<UUID> ids);
+
+    @Query(value = "SELECT COUNT(*) FROM outbox_event WHERE sent_at IS NULL", nativeQuery = true)
+    long countPendingEvents();
+
+    @Query(value = "SELECT MIN(created_at) FROM outbox_event WHERE sent_at IS NULL", nativeQuery = true)
+    LocalDateTime getOldestPendingCreatedAt();
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox_event WHERE sent_at < ?1", nativeQuery = true)
+    int deleteSentBefore(LocalDateTime sentAt);
+}
@@ -0,0 +1,82 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.SeatInventory;
+
+public interface SeatInventoryRepository extends JpaRepository<SeatInventory, UUID> {
+    /**
+     * Takes count seats if the event still has room for all of them. The row
+     * lock taken by the UPDATE serializes concurrent reservations across all
+     * booking instances.
+     *
+     * @return 1 if the seats were reserved, 0 if the event does not have
+     *         enough room or has no inventory row yet
+     */
+    @Modifying
+    @Query(value = "UPDATE seat_inventory SET reserved = reserved + ?3, capacity = ?2, updated_at = NOW() " +
+            "WHERE event_id = ?1 AND reserved + ?3 <= ?2", nativeQuery = true)
+    int reserveSeats(UUID eventID, int capacity, int count);
+
+    /**
+     * Takes one seat against the capacity stored in the counter row, for
+     * reservations made without the event at hand.
+     */
+    @Modifying
+    @Query(value = "UPDATE seat_inventory SET reserved = reserved + 1, updated_at = NOW() " +
+            "WHERE event_id = ?1 AND reserved < capacity", nativeQuery = true)
+    int reserveFreeSeat(UUID eventID);
+
+    /**
+     * Moves a block of seats into a lease, as long as at least minFree seats
+     * are free. Near the end of a sale seats are only reserved one by one, so
+     * none are left idle in another instance's lease.
+     */
+    @Modifying
+    @Query(value = "UPDATE seat_inventory SET reserved = reserved + ?2, updated_at = NOW() " +
+            "WHERE event_id = ?1 AND capacity - reserved >= GREATEST(?2, ?3)", nativeQuery = true)
+    int leaseSeats(UUID eventID, int seats, int minFree);
+
+    @Modifying
+    @Query(value = "UPDATE seat_inventory SET reserved = GREATEST(reserved - ?2, 0), updated_at = NOW() " +
+            "WHERE event_id = ?1", nativeQuery = true)
+    int releaseSeats(UUID eventID, int count);
+
+    /**
+     * Creates the counter row for an event, seeded from the bookings that
+     * already hold a seat. Does nothing if another instance created it first.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO seat_inventory (event_id, capacity, reserved, updated_at) " +
+            "SELECT ?1, ?2, COUNT(booking_id), NOW() FROM booking " +
+            "WHERE eventID = ?1 AND (status = 'CONFIRMED' OR status = 'PENDING') " +
+            "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+    int initializeInventory(UUID eventID, int capacity);
+
+    @Query(value = "SELECT reserved FROM seat_inventory WHERE event_id = ?1 FOR UPDATE", nativeQuery = true)
+    Integer lockInventory(UUID eventID);
+
+    /**
+     * Seats an event's counter should hold: its active bookings plus the seats
+     * of its leases that have not been turned into bookings yet. Computed in a
+     * single statement, so a booking made from a lease in the meantime is
+     * either counted on both sides or on neither.
+     */
+    @Query(value = "SELECT (SELECT COUNT(*) FROM booking WHERE eventID = ?1 " +
+            "AND (status = 'CONFIRMED' OR status = 'PENDING')) + " +
+            "(SELECT COALESCE(SUM(l.seats - (SELECT COUNT(*) FROM booking b WHERE b.lease_id = l.lease_id)), 0) " +
+            "FROM seat_lease l WHERE l.event_id = ?1)", nativeQuery = true)
+    Long getExpectedReserved(UUID eventID);
+
+    @Modifying
+    @Query(value = "UPDATE seat_inventory SET reserved = ?2, updated_at = NOW() WHERE event_id = ?1", nativeQuery = true)
+    int setReserved(UUID eventID, int reserved);
+
+    @Query(value = "SELECT event_id FROM seat_inventory", nativeQuery = true)
+    List<UUID> getInventoryEventIDs();
+}
@@ -0,0 +1,37 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.SeatLease;
+
+public interface SeatLeaseRepository extends JpaRepository<SeatLease, UUID> {
+    /**
+     * Pins a lease for the current transaction before a booking is made from
+     * it. Key share locks do not block each other, only the release of the
+     * lease, which waits until the booking is committed.
+     *
+     * @return the lease ID, or null if the lease has been released
+     */
+    @Query(value = "SELECT lease_id FROM seat_lease WHERE lease_id = ?1 FOR KEY SHARE", nativeQuery = true)
+    UUID pinLease(UUID leaseID);
+
+    /**
+     * Locks a lease for its release. Waits for the bookings that have pinned
+     * it, so that they are committed before its bookings are counted.
+     */
+    @Query(value = "SELECT * FROM seat_lease WHERE lease_id = ?1 FOR UPDATE", nativeQuery = true)
+    SeatLease lockLease(UUID leaseID);
+
+    @Modifying
+    @Query(value = "UPDATE seat_lease SET expires_at = ?2 WHERE instance_id = ?1", nativeQuery = true)
+    int renewLeases(UUID instanceID, LocalDateTime expiresAt);
+
+    @Query(value = "SELECT lease_id FROM seat_lease WHERE expires_at < ?1", nativeQuery = true)
+    List<UUID> getExpiredLeaseIDs(LocalDateTime now);
+}
@@ -0,0 +1,31 @@
+package com.eventbooking.bookingservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.eventbooking.bookingservice.model.WaitlistEntry;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, UUID> {
+    /**
+     * Locks the first entry of an event's waitlist. An entry that another
+     * instance is promoting is skipped, so each entry is promoted only once.
+     */
+    @Query(value = "SELECT * FROM waitlist_entry WHERE event_id = ?1 ORDER BY created_at, waitlist_entry_id " +
+            "LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<WaitlistEntry> lockHead(UUID eventID);
+
+    Optional<WaitlistEntry> findByEventIDAndUserID(UUID eventID, UUID userID);
+
+    @Query(value = "SELECT COUNT(*) FROM waitlist_entry WHERE event_id = ?1 " +
+            "AND (created_at < ?2 OR (created_at = ?2 AND waitlist_entry_id < ?3))", nativeQuery = true)
+    long countAhead(UUID eventID, LocalDateTime createdAt, UUID id);
+
+    @Modifying
+    @Query(value = "DELETE FROM waitlist_entry WHERE event_id = ?1", nativeQuery = true)
+    int deleteByEvent(UUID eventID);
+}
@@ -0,0 +1,118 @@
+package com.eventbooking.bookingservice.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.model.BookingStatus;
+import com.eventbooking.bookingservice.repository.BookingRowMapper;
+import com.eventbooking.bookingservice.service.BookingStatsService.StatusChange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class BookingExpiryService {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private BookingStatsService bookingStatsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.expiry.batch-size:500}")
+    private int batchSize;
+
+    private Counter expiredBookings;
+
+    @PostConstruct
+    private void registerMetrics() {
+        expiredBookings = Counter.builder("booking.expired")
+                .description("Pending bookings rejected because their payment did not arrive in time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rejects pending bookings whose hold has expired, in batches. Rows locked
+     * by another instance's sweep or by a payment being settled are skipped,
+     * so several instances can run the sweep at the same time.
+     */
+    @Scheduled(fixedDelayString = "${booking.expiry.sweep-interval-ms:30000}")
+    public void expirePendingBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        Integer expired;
+
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch(now));
+            total += expired == null ? 0 : expired;
+        } while (expired != null && expired == batchSize);
+
+        expiredBookings.increment(total);
+
+        if (total > 0)
+            log.info("Expired {} pending booking(s)", total);
+    }
+
+    private int expireBatch(LocalDateTime now) {
+        List<BookingDTO> bookings = jdbcTemplate.query(
+                "UPDATE booking SET status = 'REJECTED' WHERE booking_id IN (" +
+                        "SELECT booking_id FROM booking WHERE status = 'PENDING' AND expires_at < ? " +
+                        "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING " + BookingRowMapper.COLUMNS,
+                new BookingRowMapper(),
+                Timestamp.valueOf(now),
+                batchSize);
+
+        // One counter update per event, in a fixed order so concurrent
+        // sweeps and payment batches cannot deadlock on the counters
+        Map<UUID, Integer> releasedSeats = new TreeMap<>();
+
+        for (BookingDTO booking : bookings) {
+            releasedSeats.merge(booking.getEventID(), 1, Integer::sum);
+            outboxService.publish("BookingExpired", booking.getId().toString(), booking);
+
+            log.info("Booking {} expired without payment", booking.getId());
+        }
+
+        bookingStatsService.recordChanges(bookings.stream()
+                .map(booking -> StatusChange.moved(booking.getEventID(), BookingStatus.PENDING,
+                        BookingStatus.REJECTED, booking.getPrice()))
+                .toList());
+
+        releasedSeats.forEach(seatInventoryService::releaseSeats);
+
+        // Freed seats go to the events' waitlists
+        releasedSeats.keySet().forEach(bookingService::promoteWaitlist);
+
+        return bookings.size();
+    }
+}
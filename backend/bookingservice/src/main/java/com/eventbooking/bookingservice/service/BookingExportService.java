@@ -0,0 +1,174 @@
+package com.eventbooking.bookingservice.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.repository.BookingRowMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class BookingExportService {
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON, "json"),
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the format is not supported
+         */
+        public static Format fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Export format must be one of json, ndjson or csv");
+            }
+        }
+    }
+
+    private static final String CSV_HEADER = "booking_id,full_name,email,user_id,group_id,price,status,created_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${booking.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Writes all bookings of an event to the stream in the given format. The
+     * rows are read through a forward-only cursor, fetch-size rows at a time,
+     * and each one is written as soon as it is read, so memory use does not
+     * depend on the number of bookings. The cursor needs the transaction,
+     * without one the driver loads the whole result.
+     */
+    @Transactional(readOnly = true)
+    public void exportEventBookings(UUID eventID, Format format, OutputStream outputStream) throws IOException {
+        log.info("Exporting bookings for event: {} as {}", eventID, format);
+
+        BookingRowMapper rowMapper = new BookingRowMapper();
+        AtomicInteger exported = new AtomicInteger();
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            // NDJSON rows are separated by the newline written after each one
+            generator.setRootValueSeparator(null);
+
+            if (format == Format.JSON)
+                generator.writeStartArray();
+            else if (format == Format.CSV)
+                writer.write(CSV_HEADER + "\n");
+
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT " + BookingRowMapper.COLUMNS + " FROM booking WHERE eventid = ? " +
+                                "ORDER BY created_at, booking_id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setObject(1, eventID);
+                return statement;
+            }, (ResultSet rs) -> {
+                BookingDTO booking = rowMapper.mapRow(rs, exported.getAndIncrement());
+
+                try {
+                    switch (format) {
+                        case JSON -> generator.writeObject(booking);
+                        case NDJSON -> {
+                            generator.writeObject(booking);
+                            generator.flush();
+                            writer.write('\n');
+                        }
+                        case CSV -> writeCsvRow(writer, booking);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            if (format == Format.JSON)
+                generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exported {} booking(s) for event: {}", exported.get(), eventID);
+    }
+
+    private void writeCsvRow(Writer writer, BookingDTO booking) throws IOException {
+        writer.write(String.valueOf(booking.getId()));
+        writer.write(',');
+        writer.write(csvField(booking.getFullName()));
+        writer.write(',');
+        writer.write(csvField(booking.getEmail()));
+        writer.write(',');
+        writer.write(String.valueOf(booking.getUserID()));
+        writer.write(',');
+        writer.write(booking.getGroupID() == null ? "" : booking.getGroupID().toString());
+        writer.write(',');
+        writer.write(booking.getPrice() == null ? "" : booking.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(booking.getStatus().name());
+        writer.write(',');
+        writer.write(booking.getCreatedAt() == null ? "" : booking.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Quotes a user supplied value if needed. Values that a spreadsheet would
+     * run as a formula are prefixed with a quote.
+     */
+    private String csvField(String value) {
+        if (value == null || value.isEmpty())
+            return "";
+
+        if ("=+-@\t\r".indexOf(value.charAt(0)) >= 0)
+            value = "'" + value;
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
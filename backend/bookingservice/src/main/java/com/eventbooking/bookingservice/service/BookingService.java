@@ -1,19 +1,38 @@
 package com.eventbooking.bookingservice.service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Example;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.dto.BookingPageDTO;
 import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.bookingservice.dto.GroupBookingDTO;
 import com.eventbooking.bookingservice.model.Booking;
 import com.eventbooking.bookingservice.model.BookingStatus;
+import com.eventbooking.bookingservice.model.EventSnapshot;
+import com.eventbooking.bookingservice.model.WaitlistEntry;
 import com.eventbooking.bookingservice.repository.BookingRepository;
+import com.eventbooking.bookingservice.repository.BookingRowMapper;
+import com.eventbooking.bookingservice.repository.EventSnapshotRepository;
+import com.eventbooking.bookingservice.repository.WaitlistEntryRepository;
+import com.eventbooking.bookingservice.service.BookingStatsService.StatusChange;
+import com.eventbooking.bookingservice.service.IdempotencyService.IdempotentRequest;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,23 +43,69 @@ public class BookingService {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private KafkaTemplate<String, BookingDTO> kafkaTemplate;
+    private WaitlistEntryRepository waitlistEntryRepository;
 
-    public List<BookingDTO> getEventBookings(UUID eventID) {
-        log.info("Fetching all bookings for event: {}", eventID);
-        return bookingRepository.findAll(Example.of(Booking.builder().eventID(eventID).build()))
-                .stream()
-                .map(this::mapToBookingDTO)
-                .toList();
+    @Autowired
+    private EventSnapshotRepository eventSnapshotRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingStatsService bookingStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${booking.expiry.hold-ms:900000}")
+    private long holdMillis;
+
+    /**
+     * Lists a page of an event's bookings, newest first.
+     *
+     * @param limit the largest number of bookings to return
+     */
+    public BookingPageDTO getEventBookings(UUID eventID, String cursor, int limit) {
+        log.info("Fetching bookings for event: {}", eventID);
+
+        List<BookingDTO> bookings;
+
+        if (cursor == null) {
+            bookings = bookingRepository.getEventBookingsPage(eventID, Limit.of(limit));
+        } else {
+            BookingDTO after = decodeCursor(cursor);
+            bookings = bookingRepository.getEventBookingsPageAfter(eventID, after.getCreatedAt(), after.getId(),
+                    Limit.of(limit));
+        }
+
+        return toPage(bookings, limit);
     }
 
-    public List<BookingDTO> getUserBookings(UUID userID, UUID eventID) {
-        log.info("Fetching all bookings for user: {}", userID);
-        return bookingRepository
-                .findAll(Example.of(Booking.builder().userID(userID).eventID(eventID).build()))
-                .stream()
-                .map(this::mapToBookingDTO)
-                .toList();
+    /**
+     * Lists a page of a user's bookings, newest first.
+     *
+     * @param limit the largest number of bookings to return
+     */
+    public BookingPageDTO getUserBookings(UUID userID, UUID eventID, String cursor, int limit) {
+        log.info("Fetching bookings for user: {}", userID);
+
+        List<BookingDTO> bookings;
+
+        if (cursor == null) {
+            bookings = bookingRepository.getUserBookingsPage(userID, eventID, Limit.of(limit));
+        } else {
+            BookingDTO after = decodeCursor(cursor);
+            bookings = bookingRepository.getUserBookingsPageAfter(userID, eventID, after.getCreatedAt(),
+                    after.getId(), Limit.of(limit));
+        }
+
+        return toPage(bookings, limit);
     }
 
     public Optional<BookingDTO> getBooking(UUID id) {
@@ -48,10 +113,23 @@ public class BookingService {
         return bookingRepository.findById(id).map(this::mapToBookingDTO);
     }
 
-    public BookingDTO addBooking(BookingDTO bookingDTO, EventDTO event, UUID userID) {
+    /**
+     * Creates a pending booking. If the request was sent with an idempotency
+     * key, the response is stored under it in the same transaction.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         idempotency key was used by a concurrent request
+     */
+    @Transactional
+    public BookingDTO addBooking(BookingDTO bookingDTO, EventDTO event, UUID userID,
+            IdempotentRequest idempotentRequest) {
+        // Take the seat first, the booking row is only written if one is left
+        UUID leaseID = seatInventoryService.reserveSeat(event);
+
         Booking booking = Booking.builder()
                 .fullName(bookingDTO.getFullName())
                 .email(bookingDTO.getEmail())
+                .leaseID(leaseID)
                 .build();
 
         // Set event details
@@ -60,40 +138,242 @@ public class BookingService {
         // Set the user ID
         booking.setUserID(userID);
 
-        // Set the booking status to CONFIRMED
-        booking.setStatus(BookingStatus.PENDING);
-
         // Set the booking price
         booking.setPrice(event.getPrice());
 
-        bookingRepository.save(booking);
+        bookingDTO = savePendingBooking(booking);
 
-        bookingDTO = mapToBookingDTO(booking);
+        if (idempotentRequest != null)
+            idempotencyService.saveRecord(idempotentRequest, HttpStatus.CREATED.value(), bookingDTO);
 
-        kafkaTemplate.send("BookingCreated", bookingDTO);
+        return bookingDTO;
+    }
 
-        log.info("Booking {} is added to the Database", booking.getId());
+    /**
+     * Creates the pending bookings of a group. All seats are reserved with one
+     * update, the rows are inserted with one JDBC batch and a single
+     * GroupBookingCreated message asks for one payment of the total price.
+     *
+     * @throws IllegalArgumentException if the event does not have enough free
+     *         seats
+     */
+    @Transactional
+    public GroupBookingDTO addGroupBooking(List<BookingDTO> attendees, EventDTO event, UUID userID,
+            IdempotentRequest idempotentRequest) {
+        seatInventoryService.reserveSeats(event, attendees.size());
 
-        return bookingDTO;
+        UUID groupID = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.now();
+        LocalDateTime expiresAt = createdAt.plus(holdMillis, ChronoUnit.MILLIS);
+
+        List<BookingDTO> bookings = attendees.stream()
+                .map(attendee -> BookingDTO.builder()
+                        .id(UUID.randomUUID())
+                        .fullName(attendee.getFullName())
+                        .email(attendee.getEmail())
+                        .userID(userID)
+                        .eventID(event.getId())
+                        .groupID(groupID)
+                        .price(event.getPrice())
+                        .status(BookingStatus.PENDING)
+                        .createdAt(createdAt)
+                        .build())
+                .toList();
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO booking (booking_id, full_name, email, userid, eventid, group_id, price, status, " +
+                        "created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                bookings,
+                bookings.size(),
+                (statement, booking) -> {
+                    statement.setObject(1, booking.getId());
+                    statement.setString(2, booking.getFullName());
+                    statement.setString(3, booking.getEmail());
+                    statement.setObject(4, booking.getUserID());
+                    statement.setObject(5, booking.getEventID());
+                    statement.setObject(6, booking.getGroupID());
+                    statement.setBigDecimal(7, booking.getPrice());
+                    statement.setString(8, booking.getStatus().name());
+                    statement.setTimestamp(9, Timestamp.valueOf(createdAt));
+                    statement.setTimestamp(10, Timestamp.valueOf(expiresAt));
+                });
+
+        GroupBookingDTO groupBooking = GroupBookingDTO.builder()
+                .id(groupID)
+                .userID(userID)
+                .eventID(event.getId())
+                .totalPrice(event.getPrice().multiply(BigDecimal.valueOf(bookings.size())))
+                .bookings(bookings)
+                .build();
+
+        outboxService.publish("GroupBookingCreated", groupID.toString(), groupBooking);
+
+        bookingStatsService.recordChanges(bookings.stream()
+                .map(booking -> StatusChange.created(event.getId(), booking.getPrice(), createdAt))
+                .toList());
+
+        if (idempotentRequest != null)
+            idempotencyService.saveRecord(idempotentRequest, HttpStatus.CREATED.value(), groupBooking);
+
+        log.info("Group booking {} with {} booking(s) is added to the Database", groupID, bookings.size());
+
+        return groupBooking;
+    }
+
+    /**
+     * Turns the head of an event's waitlist into pending bookings for as long
+     * as the event has free seats. Called after seats have been released.
+     * Nobody is promoted once the event can no longer be booked according to
+     * its snapshot, its waitlist is cleared instead.
+     *
+     * @return the number of promoted waitlist entries
+     */
+    @Transactional
+    public int promoteWaitlist(UUID eventID) {
+        EventSnapshot event = eventSnapshotRepository.findById(eventID).orElse(null);
+
+        // Without a snapshot the event is unknown, the entries wait for the
+        // next release
+        if (event == null)
+            return 0;
+
+        // The same rules as for a new booking
+        if (!event.getStatus().equals("ACTIVE")
+                || event.getStartDateTime().isBefore(LocalDateTime.now().plusHours(1))) {
+            int deleted = waitlistEntryRepository.deleteByEvent(eventID);
+
+            if (deleted > 0)
+                log.info("Removed {} waitlist entries of event {}, it can no longer be booked", deleted, eventID);
+
+            return 0;
+        }
+
+        int promoted = 0;
+
+        while (true) {
+            WaitlistEntry entry = waitlistEntryRepository.lockHead(eventID).orElse(null);
+
+            if (entry == null || !seatInventoryService.reserveFreeSeat(eventID))
+                break;
+
+            Booking booking = Booking.builder()
+                    .fullName(entry.getFullName())
+                    .email(entry.getEmail())
+                    .eventID(eventID)
+                    .userID(entry.getUserID())
+                    .price(entry.getPrice())
+                    .build();
+
+            savePendingBooking(booking);
+
+            waitlistEntryRepository.delete(entry);
+
+            log.info("Waitlist entry {} promoted to booking {}", entry.getId(), booking.getId());
+
+            promoted++;
+        }
+
+        return promoted;
+    }
+
+    /**
+     * Cancels a booking that still holds its seat. The status is changed with
+     * a conditional update, so a concurrent expiry, payment rejection or
+     * cancellation cannot release the seat a second time.
+     *
+     * @return the cancelled booking, or empty if it does not exist
+     * @throws IllegalArgumentException if the booking is no longer pending or
+     *         confirmed
+     */
+    @Transactional
+    public Optional<BookingDTO> cancelBooking(UUID id) {
+        BookingRowMapper rowMapper = new BookingRowMapper();
+        List<BookingStatus> previousStatus = new ArrayList<>();
+
+        // The previous status is returned for the booking stats, it is read
+        // from the locked row so a concurrent payment cannot change it
+        List<BookingDTO> cancelled = jdbcTemplate.query(
+                "UPDATE booking SET status = 'CANCELLED' FROM (" +
+                        "SELECT booking_id AS cancelled_id, status AS previous_status FROM booking " +
+                        "WHERE booking_id = ? AND status IN ('PENDING', 'CONFIRMED') FOR UPDATE) previous " +
+                        "WHERE booking_id = previous.cancelled_id " +
+                        "RETURNING " + BookingRowMapper.COLUMNS + ", previous_status",
+                (rs, rowNum) -> {
+                    previousStatus.add(BookingStatus.valueOf(rs.getString("previous_status")));
+                    return rowMapper.mapRow(rs, rowNum);
+                },
+                id);
+
+        if (cancelled.isEmpty()) {
+            if (!bookingRepository.existsById(id))
+                return Optional.empty();
+
+            throw new IllegalArgumentException("Booking is no longer pending or confirmed");
+        }
+
+        BookingDTO bookingDTO = cancelled.get(0);
+
+        // Give the seat back, the next user on the waitlist gets it
+        seatInventoryService.releaseSeats(bookingDTO.getEventID(), 1);
+
+        bookingStatsService.recordChange(StatusChange.moved(bookingDTO.getEventID(), previousStatus.get(0),
+                BookingStatus.CANCELLED, bookingDTO.getPrice()));
+
+        outboxService.publish("BookingCancelled", bookingDTO.getId().toString(), bookingDTO);
+
+        log.info("Booking {} is cancelled", bookingDTO.getId());
+
+        promoteWaitlist(bookingDTO.getEventID());
+
+        return Optional.of(bookingDTO);
     }
 
-    public BookingDTO cancelBooking(UUID id) {
-        Booking booking = bookingRepository.findById(id).get();
+    private BookingDTO savePendingBooking(Booking booking) {
+        // Set the booking status to PENDING
+        booking.setStatus(BookingStatus.PENDING);
 
-        // Update the booking status to cancelled
-        booking.setStatus(BookingStatus.CANCELLED);
+        // The seat is held until the payment arrives or the hold expires
+        booking.setExpiresAt(LocalDateTime.now().plus(holdMillis, ChronoUnit.MILLIS));
 
         bookingRepository.save(booking);
 
         BookingDTO bookingDTO = mapToBookingDTO(booking);
 
-        kafkaTemplate.send("BookingCancelled", bookingDTO);
+        outboxService.publish("BookingCreated", booking.getId().toString(), bookingDTO);
 
-        log.info("Booking {} is cancelled", booking.getId());
+        bookingStatsService.recordChange(StatusChange.created(booking.getEventID(), booking.getPrice(),
+                LocalDateTime.now()));
+
+        log.info("Booking {} is added to the Database", booking.getId());
 
         return bookingDTO;
     }
 
+    private BookingPageDTO toPage(List<BookingDTO> bookings, int limit) {
+        String nextCursor = null;
+
+        if (bookings.size() == limit) {
+            BookingDTO last = bookings.get(bookings.size() - 1);
+            String position = last.getCreatedAt() + "|" + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new BookingPageDTO(bookings, nextCursor);
+    }
+
+    private BookingDTO decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+
+            return BookingDTO.builder()
+                    .createdAt(LocalDateTime.parse(position[0]))
+                    .id(UUID.fromString(position[1]))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
     private BookingDTO mapToBookingDTO(Booking booking) {
         return BookingDTO.builder()
                 .id(booking.getId())
@@ -102,6 +382,7 @@ public class BookingService {
                 .price(booking.getPrice())
                 .userID(booking.getUserID())
                 .eventID(booking.getEventID())
+                .groupID(booking.getGroupID())
                 .status(booking.getStatus())
                 .createdAt(booking.getCreatedAt())
                 .build();
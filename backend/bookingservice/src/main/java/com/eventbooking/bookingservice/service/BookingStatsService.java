@@ -0,0 +1,226 @@
+package com.eventbooking.bookingservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eventbooking.bookingservice.dto.BookingStatsDTO;
+import com.eventbooking.bookingservice.dto.HourlyBookingsDTO;
+import com.eventbooking.bookingservice.model.BookingStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class BookingStatsService {
+    /**
+     * A booking that was created with the given status (from is null) or
+     * moved from one status to another.
+     */
+    public record StatusChange(UUID eventID, BookingStatus from, BookingStatus to, BigDecimal price,
+            LocalDateTime createdAt) {
+
+        public static StatusChange created(UUID eventID, BigDecimal price, LocalDateTime createdAt) {
+            return new StatusChange(eventID, null, BookingStatus.PENDING, price, createdAt);
+        }
+
+        public static StatusChange moved(UUID eventID, BookingStatus from, BookingStatus to, BigDecimal price) {
+            return new StatusChange(eventID, from, to, price, null);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${booking.stats.fold-batch-size:5000}")
+    private int foldBatchSize;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(StatusChange change) {
+        recordChanges(List.of(change));
+    }
+
+    /**
+     * Stores the changes as deltas in the caller's transaction, one row per
+     * event and hour of creation, so they count exactly when the bookings
+     * are committed. Appending keeps concurrent bookings of one event from
+     * waiting for each other on its aggregate row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChanges(List<StatusChange> changes) {
+        Map<List<Object>, Delta> deltas = new LinkedHashMap<>();
+
+        for (StatusChange change : changes) {
+            LocalDateTime bookedHour = change.createdAt() == null
+                    ? null
+                    : change.createdAt().truncatedTo(ChronoUnit.HOURS);
+
+            deltas.computeIfAbsent(Arrays.asList(change.eventID(), bookedHour),
+                    key -> new Delta(change.eventID(), bookedHour)).add(change);
+        }
+
+        List<Delta> rows = new ArrayList<>(deltas.values());
+
+        if (rows.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO booking_stats_delta (event_id, booked_hour, pending, confirmed, cancelled, rejected, " +
+                        "revenue, bookings) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                rows,
+                rows.size(),
+                (statement, delta) -> {
+                    statement.setObject(1, delta.eventID);
+                    statement.setTimestamp(2, delta.bookedHour == null ? null : Timestamp.valueOf(delta.bookedHour));
+                    statement.setInt(3, delta.counts[BookingStatus.PENDING.ordinal()]);
+                    statement.setInt(4, delta.counts[BookingStatus.CONFIRMED.ordinal()]);
+                    statement.setInt(5, delta.counts[BookingStatus.CANCELLED.ordinal()]);
+                    statement.setInt(6, delta.counts[BookingStatus.REJECTED.ordinal()]);
+                    statement.setBigDecimal(7, delta.revenue);
+                    statement.setInt(8, delta.bookings);
+                });
+    }
+
+    /**
+     * Reads the aggregates of an event together with the deltas that have
+     * not been folded into them yet. Both are bounded by the number of
+     * hours the event has been on sale rather than its number of bookings.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public BookingStatsDTO getEventStats(UUID eventID) {
+        BookingStatsDTO stats = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(pending), 0) AS pending, COALESCE(SUM(confirmed), 0) AS confirmed, " +
+                        "COALESCE(SUM(cancelled), 0) AS cancelled, COALESCE(SUM(rejected), 0) AS rejected, " +
+                        "COALESCE(SUM(revenue), 0) AS revenue FROM (" +
+                        "SELECT pending, confirmed, cancelled, rejected, revenue FROM booking_stats " +
+                        "WHERE event_id = ? UNION ALL " +
+                        "SELECT pending, confirmed, cancelled, rejected, revenue FROM booking_stats_delta " +
+                        "WHERE event_id = ?) stats",
+                (rs, rowNum) -> BookingStatsDTO.builder()
+                        .eventID(eventID)
+                        .pending(rs.getLong("pending"))
+                        .confirmed(rs.getLong("confirmed"))
+                        .cancelled(rs.getLong("cancelled"))
+                        .rejected(rs.getLong("rejected"))
+                        .revenue(rs.getBigDecimal("revenue"))
+                        .build(),
+                eventID,
+                eventID);
+
+        stats.setHourlyBookings(jdbcTemplate.query(
+                "SELECT booked_hour, SUM(bookings) AS bookings FROM (" +
+                        "SELECT booked_hour, bookings FROM booking_stats_hourly WHERE event_id = ? UNION ALL " +
+                        "SELECT booked_hour, bookings FROM booking_stats_delta " +
+                        "WHERE event_id = ? AND booked_hour IS NOT NULL) hourly " +
+                        "GROUP BY booked_hour HAVING SUM(bookings) > 0 ORDER BY booked_hour",
+                (rs, rowNum) -> HourlyBookingsDTO.builder()
+                        .hour(rs.getTimestamp("booked_hour").toLocalDateTime())
+                        .bookings(rs.getLong("bookings"))
+                        .build(),
+                eventID,
+                eventID));
+
+        return stats;
+    }
+
+    /**
+     * Folds recorded deltas into the aggregate tables in batches. Deltas
+     * locked by another instance are skipped and the aggregate rows are
+     * updated in event order, so several instances can fold at once.
+     */
+    @Scheduled(fixedDelayString = "${booking.stats.fold-interval-ms:1000}")
+    public void foldDeltas() {
+        int total = 0;
+        Integer folded;
+
+        do {
+            folded = transactionTemplate.execute(status -> foldBatch());
+            total += folded == null ? 0 : folded;
+        } while (folded != null && folded == foldBatchSize);
+
+        if (total > 0)
+            log.debug("Folded {} booking stats delta(s)", total);
+    }
+
+    private int foldBatch() {
+        return jdbcTemplate.queryForObject(
+                "WITH moved AS (" +
+                        "DELETE FROM booking_stats_delta WHERE delta_id IN (" +
+                        "SELECT delta_id FROM booking_stats_delta ORDER BY delta_id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                        "RETURNING *), " +
+                        "totals AS (" +
+                        "INSERT INTO booking_stats (event_id, pending, confirmed, cancelled, rejected, revenue, " +
+                        "updated_at) SELECT event_id, SUM(pending), SUM(confirmed), SUM(cancelled), SUM(rejected), " +
+                        "SUM(revenue), NOW() FROM moved GROUP BY event_id ORDER BY event_id " +
+                        "ON CONFLICT (event_id) DO UPDATE SET pending = booking_stats.pending + EXCLUDED.pending, " +
+                        "confirmed = booking_stats.confirmed + EXCLUDED.confirmed, " +
+                        "cancelled = booking_stats.cancelled + EXCLUDED.cancelled, " +
+                        "rejected = booking_stats.rejected + EXCLUDED.rejected, " +
+                        "revenue = booking_stats.revenue + EXCLUDED.revenue, updated_at = EXCLUDED.updated_at), " +
+                        "hourly AS (" +
+                        "INSERT INTO booking_stats_hourly (event_id, booked_hour, bookings) " +
+                        "SELECT event_id, booked_hour, SUM(bookings) FROM moved WHERE booked_hour IS NOT NULL " +
+                        "GROUP BY event_id, booked_hour ORDER BY event_id, booked_hour " +
+                        "ON CONFLICT (event_id, booked_hour) DO UPDATE " +
+                        "SET bookings = booking_stats_hourly.bookings + EXCLUDED.bookings) " +
+                        "SELECT COUNT(*) FROM moved",
+                Integer.class,
+                foldBatchSize);
+    }
+
+    private static final class Delta {
+        private final UUID eventID;
+
+        private final LocalDateTime bookedHour;
+
+        private final int[] counts = new int[BookingStatus.values().length];
+
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private int bookings;
+
+        private Delta(UUID eventID, LocalDateTime bookedHour) {
+            this.eventID = eventID;
+            this.bookedHour = bookedHour;
+        }
+
+        private void add(StatusChange change) {
+            BigDecimal price = Objects.requireNonNullElse(change.price(), BigDecimal.ZERO);
+
+            if (change.from() == null) {
+                bookings++;
+            } else {
+                counts[change.from().ordinal()]--;
+
+                if (change.from() == BookingStatus.CONFIRMED)
+                    revenue = revenue.subtract(price);
+            }
+
+            counts[change.to().ordinal()]++;
+
+            if (change.to() == BookingStatus.CONFIRMED)
+                revenue = revenue.add(price);
+        }
+    }
+}
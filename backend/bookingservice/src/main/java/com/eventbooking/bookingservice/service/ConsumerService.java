@@ -1,11 +1,23 @@
 package com.eventbooking.bookingservice.service;
 
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.eventbooking.bookingservice.dto.BookingDTO;
 import com.eventbooking.bookingservice.dto.EventDTO;
@@ -13,6 +25,8 @@ import com.eventbooking.bookingservice.dto.PaymentDTO;
 import com.eventbooking.bookingservice.model.Booking;
 import com.eventbooking.bookingservice.model.BookingStatus;
 import com.eventbooking.bookingservice.repository.BookingRepository;
+import com.eventbooking.bookingservice.repository.BookingRowMapper;
+import com.eventbooking.bookingservice.service.BookingStatsService.StatusChange;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,52 +38,193 @@ public class ConsumerService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private BookingStatsService bookingStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${booking.kafka.event-cancelled.chunk-size:500}")
+    private int eventBookingsChunkSize;
+
     @Autowired
     private KafkaTemplate<String, List<BookingDTO>> kafkaTemplate;
 
-    @KafkaListener(topics = "PaymentCreated", groupId = "BookingServiceConsumer")
-    public void processPayment(PaymentDTO paymentDTO) {
-        log.info("Log message - recieved from PaymentCreated topic: {} ", paymentDTO.toString());
+    /**
+     * Settles a batch of payments: the affected bookings are read with one
+     * query and their new statuses are written with one JDBC batch. Only
+     * bookings that are still pending are settled, so a booking cancelled
+     * while waiting for its payment does not come back as confirmed, its
+     * payment is refunded instead if it was approved. The bookings are read
+     * as DTOs, never as entities, so the guarded update is
+     * the only write. The payment of a group booking settles all bookings of
+     * the group, which are read the same way.
+     */
+    @Transactional
+    @KafkaListener(topics = "PaymentCreated", groupId = "BookingServiceConsumer",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${booking.kafka.payment.concurrency:3}",
+            properties = "max.poll.records=${booking.kafka.payment.batch-size:500}")
+    public void processPayments(List<PaymentDTO> paymentDTOs) {
+        log.info("Log message - recieved {} payment(s) from PaymentCreated topic", paymentDTOs.size());
 
-        Booking booking = bookingRepository.findById(paymentDTO.getBookingID()).orElse(null);
+        Map<UUID, PaymentDTO> payments = new LinkedHashMap<>();
 
-        if (booking == null) {
-            log.error("Booking not found for ID: {}", paymentDTO.getBookingID());
-            return;
+        for (PaymentDTO paymentDTO : paymentDTOs)
+            payments.put(paymentDTO.getBookingID(), paymentDTO);
+
+        List<BookingDTO> bookings = new ArrayList<>();
+        List<BookingDTO> candidates = new ArrayList<>(bookingRepository.getBookings(payments.keySet()));
+        Set<UUID> matched = new HashSet<>();
+
+        candidates.forEach(booking -> matched.add(booking.getId()));
+
+        // A group booking is paid with one payment for the whole group
+        Set<UUID> groupIDs = new HashSet<>(payments.keySet());
+        groupIDs.removeAll(matched);
+
+        if (!groupIDs.isEmpty())
+            candidates.addAll(bookingRepository.getGroupBookings(groupIDs));
+
+        for (BookingDTO booking : candidates) {
+            PaymentDTO payment = payments.containsKey(booking.getId())
+                    ? payments.get(booking.getId())
+                    : payments.get(booking.getGroupID());
+
+            matched.add(payment.getBookingID());
+
+            if (booking.getStatus() != BookingStatus.PENDING) {
+                // A redelivered payment of a confirmed booking needs nothing
+                if (booking.getStatus() != BookingStatus.CONFIRMED && payment.getStatus().equals("APPROVED"))
+                    requestRefund(booking);
+                else
+                    log.error("Booking {} is not pending, payment ignored", booking.getId());
+
+                continue;
+            }
+
+            // Only the DTO gets the target status, the row is left to the
+            // guarded update below
+            booking.setStatus(payment.getStatus().equals("APPROVED")
+                    ? BookingStatus.CONFIRMED
+                    : BookingStatus.REJECTED);
+
+            bookings.add(booking);
         }
 
-        if (paymentDTO.getStatus().equals("APPROVED")) {
-            booking.setStatus(BookingStatus.CONFIRMED);
-            bookingRepository.save(booking);
-            log.info("Booking confirmed for ID: {}", paymentDTO.getBookingID());
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
-            bookingRepository.save(booking);
-            log.error("Booking cancelled for ID: {}", paymentDTO.getBookingID());
+        if (matched.size() < payments.size())
+            log.error("{} payment(s) did not match a booking", payments.size() - matched.size());
+
+        if (bookings.isEmpty())
+            return;
+
+        // The status guard keeps a concurrent cancellation from being overwritten
+        int[][] updated = jdbcTemplate.batchUpdate(
+                "UPDATE booking SET status = ? WHERE booking_id = ? AND status = 'PENDING'",
+                bookings,
+                bookings.size(),
+                (statement, booking) -> {
+                    statement.setString(1, booking.getStatus().name());
+                    statement.setObject(2, booking.getId());
+                });
+
+        // Rejected bookings give their seats back, one update per event in a
+        // fixed order so concurrent batches cannot deadlock on the counters
+        Map<UUID, Integer> releasedSeats = new TreeMap<>();
+        List<StatusChange> changes = new ArrayList<>();
+
+        for (int i = 0; i < bookings.size(); i++) {
+            BookingDTO booking = bookings.get(i);
+
+            // Cancelled or expired since it was read, the charge goes back
+            if (updated[0][i] == 0) {
+                if (booking.getStatus() == BookingStatus.CONFIRMED)
+                    requestRefund(booking);
+
+                continue;
+            }
+
+            changes.add(StatusChange.moved(booking.getEventID(), BookingStatus.PENDING, booking.getStatus(),
+                    booking.getPrice()));
+
+            if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                log.info("Booking confirmed for ID: {}", booking.getId());
+            } else {
+                releasedSeats.merge(booking.getEventID(), 1, Integer::sum);
+                log.error("Booking cancelled for ID: {}", booking.getId());
+            }
         }
+
+        bookingStatsService.recordChanges(changes);
+
+        releasedSeats.forEach(seatInventoryService::releaseSeats);
+
+        // Freed seats go to the events' waitlists
+        releasedSeats.keySet().forEach(bookingService::promoteWaitlist);
     }
 
+    /**
+     * Cancels the active bookings of a cancelled event in chunks of at most
+     * chunk-size bookings, walked in booking_id order. Each chunk is
+     * cancelled in its own short transaction and published there as one
+     * EventBookingsCancelled message, with its own key so consumers can
+     * spread them over partitions. A redelivered event resumes with the
+     * bookings that are still active.
+     */
     @KafkaListener(topics = "EventCancelled", groupId = "BookingServiceConsumer")
     public void processEventCancelled(EventDTO eventDTO) {
         log.info("Log message - recieved from EventCancelled topic: {} ", eventDTO.toString());
 
-        List<Booking> bookings = bookingRepository.getActiveEventBookings(eventDTO.getId());
+        UUID eventID = eventDTO.getId();
+        UUID after = new UUID(0, 0);
+        int cancelled = 0;
+        int chunkNumber = 0;
 
-        if (bookings.isEmpty()) {
-            log.error("No bookings found for event ID: {}", eventDTO.getId());
-            return;
-        }
+        while (true) {
+            // The chunk's upper bound is found without locking, so bookings
+            // that stop being active while the chunk waits for their locks
+            // cannot end the walk early
+            List<UUID> end = jdbcTemplate.queryForList(
+                    "SELECT booking_id FROM (SELECT booking_id FROM booking " +
+                            "WHERE eventID = ? AND (status = 'CONFIRMED' OR status = 'PENDING') AND booking_id > ? " +
+                            "ORDER BY booking_id LIMIT ?) chunk ORDER BY booking_id DESC LIMIT 1",
+                    UUID.class, eventID, after, eventBookingsChunkSize);
+
+            if (end.isEmpty())
+                break;
 
-        for (Booking booking : bookings) {
-            booking.setStatus(BookingStatus.CANCELLED);
-            bookingRepository.save(booking);
+            UUID from = after;
+            UUID to = end.get(0);
+            int number = chunkNumber++;
+            Integer count = transactionTemplate.execute(status -> cancelChunk(eventID, from, to, number));
 
-            log.info("Booking cancelled for ID: {}", booking.getId());
+            cancelled += count == null ? 0 : count;
+            after = to;
         }
 
-        kafkaTemplate.send("EventBookingsCancelled", bookings.stream().map(this::mapToBookingDTO).toList());
+        waitlistService.clearWaitlist(eventID);
 
-        log.info("All bookings cancelled for event ID: {}", eventDTO.getId());
+        if (cancelled == 0) {
+            log.error("No bookings found for event ID: {}", eventID);
+            return;
+        }
+
+        log.info("{} bookings cancelled for event ID: {} in {} chunk(s)", cancelled, eventID, chunkNumber);
     }
 
     @KafkaListener(topics = "EventUpdated", groupId = "BookingServiceConsumer")
@@ -83,7 +238,58 @@ public class ConsumerService {
             return;
         }
 
-        kafkaTemplate.send("EventUpdatedBookings", bookings.stream().map(this::mapToBookingDTO).toList());
+        kafkaTemplate.send("EventUpdatedBookings", eventDTO.getId().toString(),
+                bookings.stream().map(this::mapToBookingDTO).toList());
+    }
+
+    /**
+     * Asks paymentservice to refund an approved payment of a booking that was
+     * cancelled or expired before the payment arrived. BookingCancelled and
+     * BookingExpired may have been consumed before the charge was made, in
+     * which case they found nothing to refund. Refunds are idempotent on the
+     * payment side, so a redelivered payment cannot refund twice.
+     */
+    private void requestRefund(BookingDTO booking) {
+        outboxService.publish("BookingRefundDue", booking.getId().toString(), booking);
+
+        log.error("Booking {} is no longer pending, its payment is refunded", booking.getId());
+    }
+
+    /**
+     * Cancels the active bookings of an event with booking_id in (from, to].
+     * The previous status is returned for the booking stats, it is read from
+     * the locked rows so a concurrent payment cannot change it.
+     */
+    private int cancelChunk(UUID eventID, UUID from, UUID to, int chunkNumber) {
+        BookingRowMapper rowMapper = new BookingRowMapper();
+        List<StatusChange> changes = new ArrayList<>();
+
+        List<BookingDTO> chunk = jdbcTemplate.query(
+                "UPDATE booking SET status = 'CANCELLED' FROM (" +
+                        "SELECT booking_id AS cancelled_id, status AS previous_status FROM booking " +
+                        "WHERE eventID = ? AND (status = 'CONFIRMED' OR status = 'PENDING') " +
+                        "AND booking_id > ? AND booking_id <= ? FOR UPDATE) previous " +
+                        "WHERE booking_id = previous.cancelled_id " +
+                        "RETURNING " + BookingRowMapper.COLUMNS + ", previous_status",
+                (ResultSet rs, int rowNum) -> {
+                    BookingDTO booking = rowMapper.mapRow(rs, rowNum);
+
+                    changes.add(StatusChange.moved(eventID, BookingStatus.valueOf(rs.getString("previous_status")),
+                            BookingStatus.CANCELLED, booking.getPrice()));
+                    return booking;
+                },
+                eventID, from, to);
+
+        if (chunk.isEmpty())
+            return 0;
+
+        outboxService.publish("EventBookingsCancelled", eventID + ":" + chunkNumber, chunk);
+
+        bookingStatsService.recordChanges(changes);
+
+        seatInventoryService.releaseSeats(eventID, chunk.size());
+
+        return chunk.size();
     }
 
     private BookingDTO mapToBookingDTO(Booking booking) {
@@ -94,6 +300,7 @@ public class ConsumerService {
                 .price(booking.getPrice())
                 .userID(booking.getUserID())
                 .eventID(booking.getEventID())
+                .groupID(booking.getGroupID())
                 .status(booking.getStatus())
                 .createdAt(booking.getCreatedAt())
                 .build();
@@ -0,0 +1,46 @@
+package com.eventbooking.bookingservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import com.eventbooking.bookingservice.dto.EventDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EventCacheService {
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Replaces a changed event in the local cache, if it is cached and the
+     * change is not older than the cached copy. Evicting it instead would let
+     * the next lookup load the snapshot table before the change reached it.
+     * Every booking instance keeps its own cache, so each one listens with
+     * its own consumer group, named after its stable instance ID. A new
+     * instance only reads changes published after it first started; a
+     * restarted one resumes where it left off.
+     */
+    @KafkaListener(topics = { "EventChanged", "EventUpdated", "EventCancelled" },
+            groupId = "BookingServiceEventCache-${booking.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void refreshEvent(EventDTO eventDTO) {
+        @SuppressWarnings("unchecked")
+        Cache<Object, Object> cache = (Cache<Object, Object>) cacheManager.getCache("events").getNativeCache();
+
+        Object refreshed = cache.asMap().computeIfPresent(eventDTO.getId(),
+                (id, cached) -> isNewer(eventDTO, (EventDTO) cached) ? eventDTO : cached);
+
+        if (refreshed == eventDTO)
+            log.info("Event {} refreshed in the local cache", eventDTO.getId());
+    }
+
+    private boolean isNewer(EventDTO changed, EventDTO cached) {
+        return changed.getUpdatedAt() == null || cached.getUpdatedAt() == null
+                || !changed.getUpdatedAt().isBefore(cached.getUpdatedAt());
+    }
+}
@@ -0,0 +1,71 @@
+package com.eventbooking.bookingservice.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.bookingservice.model.EventSnapshot;
+import com.eventbooking.bookingservice.repository.EventSnapshotRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EventSnapshotService {
+    @Autowired
+    private EventSnapshotRepository eventSnapshotRepository;
+
+    public Optional<EventDTO> getSnapshot(UUID eventID) {
+        return eventSnapshotRepository.findById(eventID).map(this::mapToEventDTO);
+    }
+
+    /**
+     * Stores an event fetched from eventservice or received from Kafka. An
+     * older copy than the stored one is ignored.
+     *
+     * @return the given event
+     */
+    @Transactional
+    public EventDTO saveSnapshot(EventDTO eventDTO) {
+        int updated = eventSnapshotRepository.upsertSnapshot(eventDTO.getId(), eventDTO.getStatus(),
+                eventDTO.getCapacity(), eventDTO.getStartDateTime(), eventDTO.getPrice(), eventDTO.getOrganizerID(),
+                eventDTO.getUpdatedAt());
+
+        if (updated == 0)
+            log.debug("Kept the newer snapshot of event {}", eventDTO.getId());
+
+        return eventDTO;
+    }
+
+    /**
+     * Keeps the snapshots in step with eventservice. The snapshot table is
+     * shared by all booking instances, so they consume with one group. A new
+     * database is filled by reading the compacted EventChanged topic from the
+     * start; events missing from it are fetched on their first booking.
+     */
+    @Transactional
+    @KafkaListener(topics = { "EventChanged", "EventUpdated", "EventCancelled" },
+            groupId = "BookingServiceEventSnapshot")
+    public void processEventChanged(EventDTO eventDTO) {
+        saveSnapshot(eventDTO);
+
+        log.info("Snapshot of event {} synced, status {}", eventDTO.getId(), eventDTO.getStatus());
+    }
+
+    private EventDTO mapToEventDTO(EventSnapshot snapshot) {
+        return EventDTO.builder()
+                .id(snapshot.getEventID())
+                .status(snapshot.getStatus())
+                .capacity(snapshot.getCapacity())
+                .startDateTime(snapshot.getStartDateTime())
+                .price(snapshot.getPrice())
+                .organizerID(snapshot.getOrganizerID())
+                .updatedAt(snapshot.getUpdatedAt())
+                .build();
+    }
+}
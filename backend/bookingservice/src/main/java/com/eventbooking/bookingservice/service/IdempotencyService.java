@@ -0,0 +1,164 @@
+package com.eventbooking.bookingservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.eventbooking.bookingservice.model.IdempotencyRecord;
+import com.eventbooking.bookingservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class IdempotencyService {
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${booking.idempotency.cache-size:100000}")
+    private long cacheSize;
+
+    @Value("${booking.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    // Recent keys of this instance, the table is the source of truth
+    private Cache<String, IdempotencyRecord> recentRecords;
+
+    /**
+     * A request sent with an Idempotency-Key header. The hash covers the
+     * endpoint, the user, the event and the request body.
+     */
+    public record IdempotentRequest(String key, String endpoint, UUID userID, UUID eventID, String requestHash) {
+    }
+
+    @PostConstruct
+    private void createCache() {
+        recentRecords = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(retentionHours))
+                .build();
+    }
+
+    /**
+     * Describes a request sent with an Idempotency-Key header, or returns null
+     * if it was sent without one. Must be called before the request body is
+     * changed.
+     */
+    public IdempotentRequest describe(String key, String endpoint, UUID userID, UUID eventID, Object requestBody) {
+        if (key == null)
+            return null;
+
+        String request = endpoint + "\n" + userID + "\n" + eventID + "\n" + writeBody(requestBody);
+
+        return new IdempotentRequest(key, endpoint, userID, eventID, sha256(request));
+    }
+
+    /**
+     * Returns the stored response of an earlier request with the same key, if
+     * there was one.
+     */
+    public Optional<IdempotencyRecord> findRecord(String key) {
+        IdempotencyRecord record = recentRecords.getIfPresent(key);
+
+        if (record != null)
+            return Optional.of(record);
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(key);
+        stored.ifPresent(r -> recentRecords.put(key, r));
+
+        return stored;
+    }
+
+    /**
+     * Whether a stored response answers the request, so it may be replayed.
+     * Keys stored before requests were hashed only have their user and event
+     * checked.
+     */
+    public boolean isSameRequest(IdempotencyRecord record, IdempotentRequest request) {
+        if (record.getRequestHash() == null)
+            return record.getUserID().equals(request.userID()) && record.getEventID().equals(request.eventID());
+
+        return record.getEndpoint().equals(request.endpoint()) && record.getRequestHash().equals(request.requestHash());
+    }
+
+    /**
+     * Stores the response of a request. Must be called inside the transaction
+     * that makes the change, so the key is taken if and only if the change is
+     * committed.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if the
+     *         key was already used
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saveRecord(IdempotentRequest request, int responseStatus, Object responseBody) {
+        String body = writeBody(responseBody);
+
+        idempotencyRecordRepository.insertRecord(request.key(), request.userID(), request.eventID(), request.endpoint(),
+                request.requestHash(), responseStatus, body);
+
+        IdempotencyRecord record = IdempotencyRecord.builder()
+                .key(request.key())
+                .userID(request.userID())
+                .eventID(request.eventID())
+                .endpoint(request.endpoint())
+                .requestHash(request.requestHash())
+                .responseStatus(responseStatus)
+                .responseBody(body)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentRecords.put(request.key(), record);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${booking.idempotency.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpiredRecords() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+
+        log.info("Deleted {} expired idempotency key(s)", deleted);
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize body", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.eventbooking.bookingservice.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.model.OutboxEvent;
+import com.eventbooking.bookingservice.repository.OutboxEventRepository;
+import com.eventbooking.common.kafka.PayloadCodec;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class OutboxService {
+    // Transaction-level advisory lock held while claiming a batch
+    private static final long RELAY_LOCK_ID = 0x6f7574626f78L;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PayloadCodec payloadCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${booking.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.outbox.send-timeout-ms:10000}")
+    private long sendTimeout;
+
+    @Value("${booking.outbox.claim-timeout-ms:60000}")
+    private long claimTimeout;
+
+    @Value("${booking.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final AtomicLong pendingEvents = new AtomicLong();
+
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter sentEvents;
+
+    @PostConstruct
+    private void registerMetrics() {
+        Gauge.builder("booking.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Outbox messages not yet published to Kafka")
+                .register(meterRegistry);
+
+        Gauge.builder("booking.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age of the oldest unpublished outbox message")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        sentEvents = Counter.builder("booking.outbox.sent")
+                .description("Outbox messages published to Kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a message for Kafka. Must be called inside the transaction that
+     * makes the change, so the message is stored if and only if the change is.
+     * The payload is stored in its Kafka encoding and relayed as it is.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String topic, String key, Object payload) {
+        OutboxEvent event = OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payloadType(payload.getClass().getName())
+                .payload(payloadCodec.encode(payload))
+                .build();
+
+        outboxEventRepository.save(event);
+    }
+
+    /**
+     * Publishes pending messages in batches. A batch is claimed in one short
+     * transaction, published without holding any lock and marked as sent in a
+     * second transaction once the broker acknowledged all of its records. If
+     * anything fails the claims are released and the batch is retried on the
+     * next run.
+     */
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval-ms:200}")
+    public void relayPendingEvents() {
+        List<OutboxEvent> events;
+
+        do {
+            events = transactionTemplate.execute(status -> claimBatch());
+
+            if (events == null || events.isEmpty())
+                break;
+
+            relayBatch(events);
+        } while (events.size() == batchSize);
+
+        pendingEvents.set(outboxEventRepository.countPendingEvents());
+
+        LocalDateTime oldest = outboxEventRepository.getOldestPendingCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteSentEvents() {
+        int deleted = outboxEventRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours));
+
+        log.info("Deleted {} published outbox message(s)", deleted);
+    }
+
+    /**
+     * Claims the oldest unsent messages whose key has no message being
+     * published by a relay, so the messages of one key are published by one
+     * relay at a time, in sequence order. Claims are taken under an advisory
+     * lock; claims older than claim-timeout-ms are taken to belong to a relay
+     * that died and are claimed again.
+     */
+    private List<OutboxEvent> claimBatch() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", RELAY_LOCK_ID);
+
+        List<OutboxEvent> events = jdbcTemplate.query(
+                "UPDATE outbox_event SET claimed_until = NOW() + ? * INTERVAL '1 millisecond' " +
+                        "WHERE outbox_event_id IN (" +
+                        "SELECT outbox_event_id FROM outbox_event pending " +
+                        "WHERE sent_at IS NULL AND (claimed_until IS NULL OR claimed_until < NOW()) " +
+                        "AND NOT EXISTS (SELECT 1 FROM outbox_event claimed " +
+                        "WHERE claimed.message_key = pending.message_key AND claimed.sent_at IS NULL " +
+                        "AND claimed.claimed_until >= NOW()) " +
+                        "ORDER BY sequence_number LIMIT ?) " +
+                        "RETURNING outbox_event_id, topic, message_key, payload_type, payload, sequence_number",
+                (rs, rowNum) -> OutboxEvent.builder()
+                        .id(rs.getObject("outbox_event_id", UUID.class))
+                        .topic(rs.getString("topic"))
+                        .messageKey(rs.getString("message_key"))
+                        .payloadType(rs.getString("payload_type"))
+                        .payload(rs.getBytes("payload"))
+                        .sequenceNumber(rs.getLong("sequence_number"))
+                        .build(),
+                claimTimeout,
+                batchSize);
+
+        events.sort(Comparator.comparing(OutboxEvent::getSequenceNumber));
+
+        return events;
+    }
+
+    private void relayBatch(List<OutboxEvent> events) {
+        List<UUID> ids = events.stream().map(OutboxEvent::getId).toList();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+
+        try {
+            for (OutboxEvent event : events)
+                sends.add(kafkaTemplate.send(event.getTopic(), event.getMessageKey(), readPayload(event)));
+
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeout, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.releaseClaims(ids));
+
+            throw new IllegalStateException("Failed to publish outbox batch", e);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markSent(ids));
+
+        sentEvents.increment(events.size());
+
+        log.info("Published {} outbox message(s)", events.size());
+    }
+
+    // Rows stored as JSON before the switch to the binary encoding are
+    // converted back to their DTOs, the serializer encodes them
+    private Object readPayload(OutboxEvent event) {
+        byte[] payload = event.getPayload();
+
+        if (PayloadCodec.isEncoded(payload))
+            return payload;
+
+        try {
+            Class<?> type = Class.forName(event.getPayloadType());
+
+            if (List.class.isAssignableFrom(type))
+                return objectMapper.readValue(payload, new TypeReference<List<BookingDTO>>() {
+                });
+
+            return objectMapper.readValue(payload, type);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot deserialize outbox message " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.eventbooking.bookingservice.service;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.bookingservice.repository.SeatInventoryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class SeatInventoryService {
+    @Autowired
+    private SeatInventoryRepository seatInventoryRepository;
+
+    @Autowired
+    private SeatLeaseService seatLeaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Reserves one seat for the given event. Must run in the same transaction
+     * as the booking insert so that a failed insert gives the seat back. Seats
+     * of events with many free seats come from a lease held in memory, the
+     * others are taken from the counter row.
+     *
+     * @return the ID of the lease the seat was taken from, or null
+     * @throws IllegalArgumentException if the event is fully booked
+     */
+    @Transactional
+    public UUID reserveSeat(EventDTO event) {
+        UUID leaseID = seatLeaseService.reserveLeasedSeat(event.getId());
+
+        if (leaseID == null)
+            reserveSeats(event, 1);
+
+        return leaseID;
+    }
+
+    /**
+     * Reserves count seats for the given event, all or none of them.
+     *
+     * @throws IllegalArgumentException if the event does not have count free
+     *         seats
+     */
+    @Transactional
+    public void reserveSeats(EventDTO event, int count) {
+        int capacity = event.getCapacity();
+
+        if (seatInventoryRepository.reserveSeats(event.getId(), capacity, count) == 1)
+            return;
+
+        // The first booking of an event creates its counter row
+        if (!seatInventoryRepository.existsById(event.getId())) {
+            seatInventoryRepository.initializeInventory(event.getId(), capacity);
+
+            if (seatInventoryRepository.reserveSeats(event.getId(), capacity, count) == 1)
+                return;
+        }
+
+        throw new IllegalArgumentException(count == 1
+                ? "Event is fully booked"
+                : "Event does not have " + count + " free seats");
+    }
+
+    /**
+     * Reserves one seat of an event that already has a counter row, using the
+     * capacity stored in it.
+     *
+     * @return false if no seat is free
+     */
+    @Transactional
+    public boolean reserveFreeSeat(UUID eventID) {
+        return seatInventoryRepository.reserveFreeSeat(eventID) == 1;
+    }
+
+    public boolean hasFreeSeat(EventDTO event) {
+        return seatInventoryRepository.findById(event.getId())
+                .map(inventory -> inventory.getReserved() < event.getCapacity())
+                .orElse(event.getCapacity() > 0);
+    }
+
+    @Transactional
+    public void releaseSeats(UUID eventID, int count) {
+        if (count <= 0)
+            return;
+
+        seatInventoryRepository.releaseSeats(eventID, count);
+
+        log.info("Released {} seat(s) for event {}", count, eventID);
+    }
+
+    /**
+     * Rebuilds every counter from the booking and lease tables. The counter row
+     * is locked before counting, so reservations that are still in flight are
+     * committed (and therefore counted) by the time the new value is written.
+     */
+    @Scheduled(fixedDelayString = "${booking.inventory.reconcile-interval-ms:300000}",
+            initialDelayString = "${booking.inventory.reconcile-interval-ms:300000}")
+    public void reconcileInventory() {
+        int corrected = 0;
+
+        for (UUID eventID : seatInventoryRepository.getInventoryEventIDs()) {
+            Boolean changed = transactionTemplate.execute(status -> {
+                Integer reserved = seatInventoryRepository.lockInventory(eventID);
+
+                if (reserved == null)
+                    return false;
+
+                int actual = seatInventoryRepository.getExpectedReserved(eventID).intValue();
+
+                if (reserved == actual)
+                    return false;
+
+                seatInventoryRepository.setReserved(eventID, actual);
+
+                log.warn("Seat inventory for event {} corrected from {} to {}", eventID, reserved, actual);
+
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(changed))
+                corrected++;
+        }
+
+        log.info("Seat inventory reconciliation finished, {} event(s) corrected", corrected);
+    }
+}
@@ -0,0 +1,240 @@
+package com.eventbooking.bookingservice.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eventbooking.bookingservice.model.SeatLease;
+import com.eventbooking.bookingservice.repository.BookingRepository;
+import com.eventbooking.bookingservice.repository.SeatInventoryRepository;
+import com.eventbooking.bookingservice.repository.SeatLeaseRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Leases blocks of seats from the seat counter so that single bookings of
+ * events with many free seats are admitted from memory by a
+ * {@link StripedSeatAllocator} instead of all updating the same counter row.
+ *
+ * The counter keeps counting every leased seat, so leases can never exceed the
+ * capacity. Bookings made from a lease carry its ID and are counted when the
+ * lease is released; only the seats that were not booked go back to the
+ * counter.
+ *
+ * Leases are granted and released on a thread of their own: a booking never
+ * waits for a lease, it reserves its seat on the counter while its stripe is
+ * refilled.
+ */
+@Slf4j
+@Service
+public class SeatLeaseService implements StripedSeatAllocator.LeaseSource {
+    @Autowired
+    private SeatInventoryRepository seatInventoryRepository;
+
+    @Autowired
+    private SeatLeaseRepository seatLeaseRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Lazy, the booking service reserves its seats through this service
+    @Lazy
+    @Autowired
+    private BookingService bookingService;
+
+    @Value("${booking.inventory.lease.enabled:true}")
+    private boolean enabled;
+
+    @Value("${booking.inventory.lease.stripes:4}")
+    private int stripes;
+
+    @Value("${booking.inventory.lease.block-size:20}")
+    private int blockSize;
+
+    @Value("${booking.inventory.lease.min-free-seats:200}")
+    private int minFreeSeats;
+
+    @Value("${booking.inventory.lease.ttl-ms:60000}")
+    private long ttl;
+
+    @Value("${booking.inventory.lease.idle-ms:10000}")
+    private long idleTime;
+
+    @Value("${booking.inventory.lease.exhausted-backoff-ms:1000}")
+    private long exhaustedBackoff;
+
+    // Leases are tied to this process, a restarted instance never reuses them
+    private final UUID instanceID = UUID.randomUUID();
+
+    private StripedSeatAllocator allocator;
+
+    // Refills, and the releases of the blocks they replace, run here instead
+    // of on a request thread that holds a booking transaction and connection
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-lease-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Leases are granted and released on their own, never as part of the
+    // booking transaction that happened to need them
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    private void createAllocator() {
+        allocator = new StripedSeatAllocator(this, stripes, Duration.ofMillis(exhaustedBackoff), refillExecutor);
+
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes a seat of the event from a lease and pins the lease until the
+     * current transaction ends. If the transaction does not commit, the seat
+     * goes back to the lease.
+     *
+     * @return the lease ID to store with the booking, or null if the seat has
+     *         to be reserved on the counter directly
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public UUID reserveLeasedSeat(UUID eventID) {
+        if (!enabled)
+            return null;
+
+        StripedSeatAllocator.Lease lease = allocator.acquire(eventID);
+
+        if (lease == null)
+            return null;
+
+        // The lease was released under us, e.g. after it expired
+        if (seatLeaseRepository.pinLease(lease.id()) == null) {
+            allocator.invalidate(lease);
+            return null;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED)
+                    allocator.giveBack(lease);
+            }
+        });
+
+        return lease.id();
+    }
+
+    /**
+     * Called on the refill executor. A failure counts as no seats to spare, so
+     * the stripe backs off before the next attempt.
+     */
+    @Override
+    public StripedSeatAllocator.Lease lease(UUID eventID) {
+        try {
+            return leaseSeats(eventID);
+        } catch (RuntimeException e) {
+            log.error("Failed to lease seats of event {}", eventID, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void release(StripedSeatAllocator.Lease lease) {
+        releaseLease(lease.id());
+    }
+
+    /**
+     * Keeps this instance's leases alive, gives back the ones it no longer
+     * uses and releases the expired leases of instances that stopped.
+     */
+    @Scheduled(fixedDelayString = "${booking.inventory.lease.renew-interval-ms:10000}")
+    public void maintainLeases() {
+        allocator.releaseIdle(Duration.ofMillis(idleTime));
+
+        newTransaction.executeWithoutResult(status -> seatLeaseRepository.renewLeases(instanceID,
+                LocalDateTime.now().plus(ttl, ChronoUnit.MILLIS)));
+
+        for (UUID leaseID : seatLeaseRepository.getExpiredLeaseIDs(LocalDateTime.now()))
+            releaseLease(leaseID);
+    }
+
+    @PreDestroy
+    public void releaseLeases() throws InterruptedException {
+        // No block may be installed after the release below
+        refillExecutor.shutdown();
+        refillExecutor.awaitTermination(10, TimeUnit.SECONDS);
+
+        allocator.releaseAll();
+    }
+
+    private StripedSeatAllocator.Lease leaseSeats(UUID eventID) {
+        return newTransaction.execute(status -> {
+            if (seatInventoryRepository.leaseSeats(eventID, blockSize, minFreeSeats) == 0)
+                return null;
+
+            SeatLease lease = seatLeaseRepository.save(SeatLease.builder()
+                    .eventID(eventID)
+                    .instanceID(instanceID)
+                    .seats(blockSize)
+                    .expiresAt(LocalDateTime.now().plus(ttl, ChronoUnit.MILLIS))
+                    .build());
+
+            log.info("Leased {} seat(s) of event {} in lease {}", blockSize, eventID, lease.getId());
+
+            return new StripedSeatAllocator.Lease(lease.getId(), eventID, blockSize);
+        });
+    }
+
+    private void releaseLease(UUID leaseID) {
+        UUID eventID = newTransaction.execute(status -> {
+            SeatLease lease = seatLeaseRepository.lockLease(leaseID);
+
+            if (lease == null)
+                return null;
+
+            int unused = lease.getSeats() - (int) bookingRepository.countLeaseBookings(leaseID);
+
+            seatLeaseRepository.delete(lease);
+
+            if (unused > 0)
+                seatInventoryRepository.releaseSeats(lease.getEventID(), unused);
+
+            log.info("Released lease {} of event {}, {} seat(s) returned", leaseID, lease.getEventID(), unused);
+
+            return unused > 0 ? lease.getEventID() : null;
+        });
+
+        if (eventID == null)
+            return;
+
+        // Returned seats may be waited for by users on the waitlist. They are
+        // promoted in a transaction of their own, which neither joins nor
+        // rolls back with whatever the calling thread is doing
+        try {
+            newTransaction.executeWithoutResult(status -> bookingService.promoteWaitlist(eventID));
+        } catch (RuntimeException e) {
+            log.error("Failed to promote the waitlist of event {}", eventID, e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.eventbooking.bookingservice.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out seats of an event from memory. Every event gets a fixed number of
+ * stripes, each holding at most one leased block of seats whose remaining
+ * count is taken with a CAS. A thread starts at a random stripe and moves on
+ * to the others when it is dry; only when all of them are dry does it ask for
+ * a new block for its stripe, while other threads keep taking from theirs.
+ * Blocks are leased, and the blocks they replace released, on the refill
+ * executor, so a thread taking a seat never waits for the lease source; it
+ * gets no seat while its stripe is being refilled.
+ *
+ * A block never hands out more seats than it was leased with and a retired
+ * block hands out none, so the allocator cannot admit more seats than the
+ * lease source granted. Seats of a retired block are accounted for by the
+ * lease source when the block is released.
+ */
+public class StripedSeatAllocator {
+    /**
+     * Where blocks of seats come from and go back to.
+     */
+    public interface LeaseSource {
+        /**
+         * Leases a block of the event's seats.
+         *
+         * @return the lease, or null if the event has no seats to spare
+         */
+        Lease lease(UUID eventID);
+
+        /**
+         * Gives back the seats of a lease that were not turned into bookings.
+         */
+        void release(Lease lease);
+    }
+
+    public record Lease(UUID id, UUID eventID, int seats) {
+    }
+
+    private final LeaseSource leaseSource;
+
+    private final int stripeCount;
+
+    private final long exhaustedBackoffNanos;
+
+    private final Executor refillExecutor;
+
+    private final Map<UUID, EventStripes> events = new ConcurrentHashMap<>();
+
+    public StripedSeatAllocator(LeaseSource leaseSource, int stripeCount, Duration exhaustedBackoff,
+            Executor refillExecutor) {
+        this.leaseSource = leaseSource;
+        this.stripeCount = stripeCount;
+        this.exhaustedBackoffNanos = exhaustedBackoff.toNanos();
+        this.refillExecutor = refillExecutor;
+    }
+
+    /**
+     * Takes one seat of the event.
+     *
+     * @return the lease the seat was taken from, or null if there is no leased
+     *         seat left; a refill of the thread's stripe is requested then
+     */
+    public Lease acquire(UUID eventID) {
+        EventStripes eventStripes = events.computeIfAbsent(eventID, id -> new EventStripes());
+        int start = ThreadLocalRandom.current().nextInt(stripeCount);
+
+        for (int i = 0; i < stripeCount; i++) {
+            Lease lease = eventStripes.stripes[(start + i) % stripeCount].tryTake();
+
+            if (lease != null)
+                return lease;
+        }
+
+        Stripe stripe = eventStripes.stripes[start];
+
+        stripe.requestRefill(eventStripes, eventID);
+
+        // An executor running the refill in place has already installed it
+        return stripe.tryTake();
+    }
+
+    /**
+     * Returns a seat taken by {@link #acquire} that was not used, for example
+     * because the booking transaction rolled back. Dropped if its block has
+     * been retired in the meantime.
+     */
+    public void giveBack(Lease lease) {
+        Stripe stripe = findStripe(lease);
+
+        if (stripe != null)
+            stripe.giveBack(lease);
+    }
+
+    /**
+     * Stops handing out seats of a lease that the lease source no longer
+     * knows, without releasing it.
+     */
+    public void invalidate(Lease lease) {
+        Stripe stripe = findStripe(lease);
+
+        if (stripe != null)
+            stripe.invalidate(lease);
+    }
+
+    /**
+     * Releases the blocks that no seat was taken from for the given time, so
+     * their seats can be booked through other instances.
+     */
+    public void releaseIdle(Duration idle) {
+        releaseIdle(idle.toNanos());
+    }
+
+    public void releaseAll() {
+        releaseIdle(Long.MIN_VALUE);
+    }
+
+    private void releaseIdle(long idleNanos) {
+        long now = System.nanoTime();
+
+        for (Map.Entry<UUID, EventStripes> entry : events.entrySet()) {
+            EventStripes eventStripes = entry.getValue();
+            boolean empty = true;
+
+            for (Stripe stripe : eventStripes.stripes)
+                empty &= stripe.releaseIfIdle(now, idleNanos);
+
+            if (empty && eventStripes.close())
+                events.remove(entry.getKey(), eventStripes);
+        }
+    }
+
+    /**
+     * Seats of the event that can still be handed out from memory.
+     */
+    public int available(UUID eventID) {
+        EventStripes eventStripes = events.get(eventID);
+        int available = 0;
+
+        if (eventStripes == null)
+            return 0;
+
+        for (Stripe stripe : eventStripes.stripes)
+            available += stripe.available();
+
+        return available;
+    }
+
+    private Stripe findStripe(Lease lease) {
+        EventStripes eventStripes = events.get(lease.eventID());
+
+        if (eventStripes == null)
+            return null;
+
+        for (Stripe stripe : eventStripes.stripes) {
+            Block block = stripe.block;
+
+            if (block != null && block.lease.id().equals(lease.id()))
+                return stripe;
+        }
+
+        return null;
+    }
+
+    private final class EventStripes {
+        private final Stripe[] stripes = new Stripe[stripeCount];
+
+        // Set once the stripes are dropped from the map, no new block may be
+        // installed after that or it would never be released
+        private volatile boolean closed;
+
+        private EventStripes() {
+            for (int i = 0; i < stripeCount; i++)
+                stripes[i] = new Stripe();
+        }
+
+        private boolean close() {
+            for (Stripe stripe : stripes)
+                stripe.lock.lock();
+
+            try {
+                for (Stripe stripe : stripes) {
+                    if (stripe.block != null)
+                        return false;
+                }
+
+                closed = true;
+                return true;
+            } finally {
+                for (Stripe stripe : stripes)
+                    stripe.lock.unlock();
+            }
+        }
+    }
+
+    private final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile Block block;
+
+        private volatile long lastUsed = System.nanoTime();
+
+        private volatile long exhaustedUntil = System.nanoTime();
+
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        private Lease tryTake() {
+            Block current = block;
+
+            if (current == null || !current.take())
+                return null;
+
+            lastUsed = System.nanoTime();
+
+            return current.lease;
+        }
+
+        private void requestRefill(EventStripes owner, UUID eventID) {
+            if (System.nanoTime() - exhaustedUntil < 0 || !refilling.compareAndSet(false, true))
+                return;
+
+            try {
+                refillExecutor.execute(() -> {
+                    try {
+                        refill(owner, eventID);
+                    } finally {
+                        refilling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the seats come from the counter
+                refilling.set(false);
+            }
+        }
+
+        private void refill(EventStripes owner, UUID eventID) {
+            lock.lock();
+
+            try {
+                // Refill only a dry stripe of stripes that are still in use
+                Block current = block;
+
+                if ((current != null && current.remaining.get() > 0) || owner.closed)
+                    return;
+
+                retire();
+
+                Lease leased = leaseSource.lease(eventID);
+
+                if (leased == null) {
+                    exhaustedUntil = System.nanoTime() + exhaustedBackoffNanos;
+                    return;
+                }
+
+                block = new Block(leased);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void giveBack(Lease lease) {
+            Block current = block;
+
+            if (current != null && current.lease.id().equals(lease.id()))
+                current.giveBack();
+        }
+
+        private void invalidate(Lease lease) {
+            lock.lock();
+
+            try {
+                Block current = block;
+
+                if (current != null && current.lease.id().equals(lease.id())) {
+                    block = null;
+                    current.retire();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean releaseIfIdle(long now, long idleNanos) {
+            if (block == null)
+                return true;
+
+            if (now - lastUsed <= idleNanos)
+                return false;
+
+            lock.lock();
+
+            try {
+                if (block != null && now - lastUsed > idleNanos)
+                    retire();
+
+                return block == null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int available() {
+            Block current = block;
+
+            return current == null ? 0 : Math.max(current.remaining.get(), 0);
+        }
+
+        // Must hold the lock
+        private void retire() {
+            Block current = block;
+
+            if (current == null)
+                return;
+
+            block = null;
+            current.retire();
+            leaseSource.release(current.lease);
+        }
+    }
+
+    private static final class Block {
+        private static final int RETIRED = Integer.MIN_VALUE;
+
+        private final Lease lease;
+
+        private final AtomicInteger remaining;
+
+        private Block(Lease lease) {
+            this.lease = lease;
+            this.remaining = new AtomicInteger(lease.seats());
+        }
+
+        private boolean take() {
+            while (true) {
+                int current = remaining.get();
+
+                if (current <= 0)
+                    return false;
+
+                if (remaining.compareAndSet(current, current - 1))
+                    return true;
+            }
+        }
+
+        private void giveBack() {
+            while (true) {
+                int current = remaining.get();
+
+                if (current < 0 || remaining.compareAndSet(current, current + 1))
+                    return;
+            }
+        }
+
+        private void retire() {
+            remaining.set(RETIRED);
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package com.eventbooking.bookingservice.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.dto.BookingPrerequisitesDTO;
 import com.eventbooking.bookingservice.dto.EventDTO;
 import com.eventbooking.bookingservice.model.Booking;
 import com.eventbooking.bookingservice.model.BookingStatus;
 import com.eventbooking.bookingservice.repository.BookingRepository;
+import com.eventbooking.common.event.EventBatchLoader;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Service
@@ -26,19 +37,66 @@ public class ValidationService {
     @Autowired
     private WebClient.Builder webClientBuilder;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EventSnapshotService eventSnapshotService;
+
+    @Autowired
+    private EventBatchLoader<EventDTO> eventBatchLoader;
+
+    @Value("${booking.validation.event-timeout-ms:2000}")
+    private long eventTimeout;
+
+    @Value("${booking.validation.balance-timeout-ms:500}")
+    private long balanceTimeout;
+
+    @Value("${booking.group.max-size:100}")
+    private int maxGroupSize;
+
+    /**
+     * Looks an event up in the local snapshot table, which is fed by the
+     * event topics, and only asks eventservice if the event is not there yet.
+     * Results are kept in the local "events" cache, which is bounded, expires
+     * entries after a TTL and is refreshed by the event topics.
+     */
+    @Cacheable(cacheNames = "events", key = "#eventID", sync = true)
     public EventDTO getEventDetails(UUID eventID) {
-        EventDTO event = webClientBuilder
-                .build()
-                .get()
-                .uri("http://eventservice:8080/api/events/{eventID}", eventID)
-                .retrieve()
-                .bodyToMono(EventDTO.class)
-                .block();
+        return eventSnapshotService.getSnapshot(eventID)
+                .orElseGet(() -> eventSnapshotService.saveSnapshot(fetchEventDetails(eventID).block()));
+    }
 
-        return event;
+    /**
+     * Loads the event and the user's balance for a new booking. Both calls are
+     * issued at the same time, so the wait is the slowest of the two rather
+     * than their sum.
+     *
+     * The balance is only a pre-check, paymentservice checks it again when it
+     * handles BookingCreated. If paymentservice is slow or down the booking is
+     * accepted without it and the user balance is left null.
+     */
+    public BookingPrerequisitesDTO getBookingPrerequisites(UUID eventID, String authHeader) {
+        Mono<EventDTO> event = getEventDetailsAsync(eventID)
+                .timeout(Duration.ofMillis(eventTimeout))
+                .onErrorMap(TimeoutException.class,
+                        e -> new IllegalStateException("Event service did not respond in time"));
+
+        Mono<Optional<BigDecimal>> balance = getUserBalanceAsync(authHeader)
+                .map(Optional::of)
+                .timeout(Duration.ofMillis(balanceTimeout))
+                .onErrorResume(e -> {
+                    log.warn("Skipping balance pre-check, payment service failed: {}", e.toString());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(event, balance)
+                .map(result -> new BookingPrerequisitesDTO(result.getT1(), result.getT2().orElse(null)))
+                .block();
     }
 
-    public boolean isBookingValid(BookingDTO bookingDTO, EventDTO eventDTO, String authHeader) {
+    public boolean isBookingValid(BookingDTO bookingDTO, EventDTO eventDTO, BigDecimal userBalance) {
         if (bookingDTO.getFullName() == null || bookingDTO.getFullName().isEmpty()) {
             throw new IllegalArgumentException("Full name is required");
         }
@@ -55,10 +113,6 @@ public class ValidationService {
             throw new IllegalArgumentException("Event is not active");
         }
 
-        if (eventDTO.getCapacity() <= bookingRepository.getParticipantCount(eventDTO.getId())) {
-            throw new IllegalArgumentException("Event is fully booked");
-        }
-
         if (eventDTO.getStartDateTime().isBefore(LocalDateTime.now().plusHours(1))) {
             throw new IllegalArgumentException("You cannot book an event that starts in less than 1 hour");
         }
@@ -67,21 +121,48 @@ public class ValidationService {
             throw new IllegalArgumentException("You cannot book your own event");
         }
 
-        BigDecimal userBalance = getUserBalance(authHeader);
+        if (userBalance != null && bookingDTO.getPrice().compareTo(userBalance) > 0) {
+            throw new IllegalArgumentException("You do not have enough balance to book this event");
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks every booking of a group and the group's total price against the
+     * user's balance, if it is known.
+     */
+    public boolean isGroupBookingValid(List<BookingDTO> bookingDTOs, EventDTO eventDTO, BigDecimal userBalance) {
+        if (bookingDTOs == null || bookingDTOs.isEmpty()) {
+            throw new IllegalArgumentException("At least one booking is required");
+        }
+
+        if (bookingDTOs.size() > maxGroupSize) {
+            throw new IllegalArgumentException("A group booking cannot have more than " + maxGroupSize + " bookings");
+        }
+
+        for (BookingDTO bookingDTO : bookingDTOs) {
+            isBookingValid(bookingDTO, eventDTO, null);
+        }
 
-        if (bookingDTO.getPrice().compareTo(userBalance) > 0) {
+        BigDecimal totalPrice = eventDTO.getPrice().multiply(BigDecimal.valueOf(bookingDTOs.size()));
+
+        if (userBalance != null && totalPrice.compareTo(userBalance) > 0) {
             throw new IllegalArgumentException("You do not have enough balance to book this event");
         }
 
         return true;
     }
 
-    public boolean canCancelBooking(BookingDTO booking, UUID userID) {
+    public boolean canCancelBooking(BookingDTO booking, EventDTO event) {
         if (booking.getStatus() == BookingStatus.CANCELLED) {
             throw new IllegalArgumentException("Booking is already cancelled");
         }
 
-        EventDTO event = getEventDetails(booking.getEventID());
+        // The group's single payment could not be refunded for one booking yet
+        if (booking.getGroupID() != null && booking.getStatus() == BookingStatus.PENDING) {
+            throw new IllegalArgumentException("A group booking can only be cancelled once its payment is settled");
+        }
 
         if (event.getStartDateTime().isBefore(LocalDateTime.now().plusHours(1))) {
             throw new IllegalArgumentException("You cannot cancel an event that starts in less than 1 hour");
@@ -103,14 +184,38 @@ public class ValidationService {
         return bookingRepository.existsById(bookingID);
     }
 
-    private BigDecimal getUserBalance(String authHeader) {
+    private Mono<EventDTO> getEventDetailsAsync(UUID eventID) {
+        Cache cache = cacheManager.getCache("events");
+        EventDTO cached = cache.get(eventID, EventDTO.class);
+
+        if (cached != null)
+            return Mono.just(cached);
+
+        EventDTO snapshot = eventSnapshotService.getSnapshot(eventID).orElse(null);
+
+        if (snapshot != null) {
+            cache.put(eventID, snapshot);
+            return Mono.just(snapshot);
+        }
+
+        // Storing the snapshot blocks on JDBC, which must not run on the WebClient thread
+        return fetchEventDetails(eventID)
+                .publishOn(Schedulers.boundedElastic())
+                .map(eventSnapshotService::saveSnapshot)
+                .doOnNext(event -> cache.put(eventID, event));
+    }
+
+    private Mono<EventDTO> fetchEventDetails(UUID eventID) {
+        return Mono.fromFuture(() -> eventBatchLoader.load(eventID));
+    }
+
+    private Mono<BigDecimal> getUserBalanceAsync(String authHeader) {
         return webClientBuilder
                 .build()
                 .get()
                 .uri("http://paymentservice:8080/api/account/balance")
                 .header("Authorization", authHeader)
                 .retrieve()
-                .bodyToMono(BigDecimal.class)
-                .block();
+                .bodyToMono(BigDecimal.class);
     }
 };
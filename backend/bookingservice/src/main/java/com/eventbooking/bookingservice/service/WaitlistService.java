@@ -0,0 +1,104 @@
+package com.eventbooking.bookingservice.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.eventbooking.bookingservice.dto.BookingDTO;
+import com.eventbooking.bookingservice.dto.EventDTO;
+import com.eventbooking.bookingservice.dto.WaitlistEntryDTO;
+import com.eventbooking.bookingservice.model.WaitlistEntry;
+import com.eventbooking.bookingservice.repository.WaitlistEntryRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class WaitlistService {
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    public Optional<WaitlistEntryDTO> getWaitlistEntry(UUID eventID, UUID userID) {
+        return waitlistEntryRepository.findByEventIDAndUserID(eventID, userID).map(this::mapToWaitlistEntryDTO);
+    }
+
+    /**
+     * Puts the user at the end of a sold-out event's waitlist. The entry is
+     * turned into a pending booking as soon as a seat is freed.
+     *
+     * @throws IllegalArgumentException if the event still has free seats or
+     *         the user is already on the waitlist
+     */
+    @Transactional
+    public WaitlistEntryDTO joinWaitlist(BookingDTO bookingDTO, EventDTO event, UUID userID) {
+        if (seatInventoryService.hasFreeSeat(event))
+            throw new IllegalArgumentException("Event is not fully booked");
+
+        if (waitlistEntryRepository.findByEventIDAndUserID(event.getId(), userID).isPresent())
+            throw new IllegalArgumentException("You are already on the waitlist of this event");
+
+        WaitlistEntry entry = WaitlistEntry.builder()
+                .fullName(bookingDTO.getFullName())
+                .email(bookingDTO.getEmail())
+                .eventID(event.getId())
+                .userID(userID)
+                .price(event.getPrice())
+                .build();
+
+        waitlistEntryRepository.saveAndFlush(entry);
+
+        WaitlistEntryDTO entryDTO = mapToWaitlistEntryDTO(entry);
+
+        log.info("User {} joined the waitlist of event {} at position {}", userID, event.getId(),
+                entryDTO.getPosition());
+
+        // A seat freed since the check above would otherwise wait for the next release
+        bookingService.promoteWaitlist(event.getId());
+
+        return entryDTO;
+    }
+
+    @Transactional
+    public boolean leaveWaitlist(UUID eventID, UUID userID) {
+        WaitlistEntry entry = waitlistEntryRepository.findByEventIDAndUserID(eventID, userID).orElse(null);
+
+        if (entry == null)
+            return false;
+
+        waitlistEntryRepository.delete(entry);
+
+        log.info("User {} left the waitlist of event {}", userID, eventID);
+
+        return true;
+    }
+
+    @Transactional
+    public void clearWaitlist(UUID eventID) {
+        int deleted = waitlistEntryRepository.deleteByEvent(eventID);
+
+        if (deleted > 0)
+            log.info("Removed {} waitlist entries of event {}", deleted, eventID);
+    }
+
+    private WaitlistEntryDTO mapToWaitlistEntryDTO(WaitlistEntry entry) {
+        return WaitlistEntryDTO.builder()
+                .id(entry.getId())
+                .eventID(entry.getEventID())
+                .userID(entry.getUserID())
+                .fullName(entry.getFullName())
+                .email(entry.getEmail())
+                .price(entry.getPrice())
+                .position(waitlistEntryRepository.countAhead(entry.getEventID(), entry.getCreatedAt(), entry.getId()))
+                .createdAt(entry.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,6 @@
+-- Releasing a lease counts the bookings made from it.
+-- Built concurrently so that the booking table stays writable.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_lease_idx
+    ON booking (lease_id)
+    WHERE lease_id IS NOT NULL;
@@ -0,0 +1,15 @@
+-- Local copy of the event fields that bookings are validated against, kept up
+-- to date from the EventChanged, EventUpdated and EventCancelled topics so the
+-- booking path does not have to call eventservice.
+
+CREATE TABLE IF NOT EXISTS event_snapshot (
+    event_id UUID NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    capacity INTEGER NOT NULL,
+    start_date_time TIMESTAMP(6) NOT NULL,
+    price NUMERIC(38, 2) NOT NULL,
+    organizer_id UUID NOT NULL,
+    updated_at TIMESTAMP(6),
+    synced_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT event_snapshot_pkey PRIMARY KEY (event_id)
+);
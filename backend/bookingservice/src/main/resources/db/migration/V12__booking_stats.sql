@@ -0,0 +1,59 @@
+-- Per-event booking aggregates. Status changes append deltas to
+-- booking_stats_delta in the booking's transaction, without contending for
+-- the aggregate row; a background job folds them into booking_stats and
+-- booking_stats_hourly.
+
+CREATE TABLE IF NOT EXISTS booking_stats (
+    event_id UUID NOT NULL,
+    pending BIGINT NOT NULL,
+    confirmed BIGINT NOT NULL,
+    cancelled BIGINT NOT NULL,
+    rejected BIGINT NOT NULL,
+    revenue NUMERIC(38, 2) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT booking_stats_pkey PRIMARY KEY (event_id)
+);
+
+CREATE TABLE IF NOT EXISTS booking_stats_hourly (
+    event_id UUID NOT NULL,
+    booked_hour TIMESTAMP(6) NOT NULL,
+    bookings BIGINT NOT NULL,
+    CONSTRAINT booking_stats_hourly_pkey PRIMARY KEY (event_id, booked_hour)
+);
+
+CREATE TABLE IF NOT EXISTS booking_stats_delta (
+    delta_id BIGSERIAL NOT NULL,
+    event_id UUID NOT NULL,
+    booked_hour TIMESTAMP(6),
+    pending INTEGER NOT NULL,
+    confirmed INTEGER NOT NULL,
+    cancelled INTEGER NOT NULL,
+    rejected INTEGER NOT NULL,
+    revenue NUMERIC(38, 2) NOT NULL,
+    bookings INTEGER NOT NULL,
+    CONSTRAINT booking_stats_delta_pkey PRIMARY KEY (delta_id)
+);
+
+CREATE INDEX IF NOT EXISTS booking_stats_delta_event_idx
+    ON booking_stats_delta (event_id);
+
+-- Existing bookings are counted once here, later changes arrive as deltas
+INSERT INTO booking_stats (event_id, pending, confirmed, cancelled, rejected, revenue, updated_at)
+SELECT eventid,
+       COUNT(*) FILTER (WHERE status = 'PENDING'),
+       COUNT(*) FILTER (WHERE status = 'CONFIRMED'),
+       COUNT(*) FILTER (WHERE status = 'CANCELLED'),
+       COUNT(*) FILTER (WHERE status = 'REJECTED'),
+       COALESCE(SUM(price) FILTER (WHERE status = 'CONFIRMED'), 0),
+       NOW()
+FROM booking
+WHERE eventid IS NOT NULL
+GROUP BY eventid
+ON CONFLICT (event_id) DO NOTHING;
+
+INSERT INTO booking_stats_hourly (event_id, booked_hour, bookings)
+SELECT eventid, DATE_TRUNC('hour', created_at), COUNT(*)
+FROM booking
+WHERE eventid IS NOT NULL
+GROUP BY eventid, DATE_TRUNC('hour', created_at)
+ON CONFLICT (event_id, booked_hour) DO NOTHING;
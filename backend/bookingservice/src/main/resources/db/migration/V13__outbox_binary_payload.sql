@@ -0,0 +1,6 @@
+-- Outbox payloads are stored in the binary Kafka encoding instead of JSON
+-- text. Rows still pending keep their JSON bytes and are converted by the
+-- relay.
+
+ALTER TABLE outbox_event
+    ALTER COLUMN payload TYPE BYTEA USING convert_to(payload, 'UTF8');
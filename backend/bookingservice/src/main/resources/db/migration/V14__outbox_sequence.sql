@@ -0,0 +1,25 @@
+-- Outbox messages are relayed in the order of a database sequence instead of
+-- their creation time, which comes from the clock of each booking instance.
+-- Messages already stored are numbered in creation order.
+--
+-- claimed_until is set while a relay is publishing a message outside the
+-- claiming transaction. Until then no other message with the same key is
+-- claimed, so messages of one key reach Kafka in sequence order.
+
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS sequence_number BIGINT;
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP(6);
+
+UPDATE outbox_event
+SET sequence_number = numbered.position
+FROM (SELECT outbox_event_id, row_number() OVER (ORDER BY created_at, outbox_event_id) AS position
+      FROM outbox_event) numbered
+WHERE outbox_event.outbox_event_id = numbered.outbox_event_id;
+
+CREATE SEQUENCE IF NOT EXISTS outbox_event_sequence_number_seq OWNED BY outbox_event.sequence_number;
+
+SELECT setval('outbox_event_sequence_number_seq', COALESCE(MAX(sequence_number), 0) + 1, false)
+FROM outbox_event;
+
+ALTER TABLE outbox_event
+    ALTER COLUMN sequence_number SET DEFAULT nextval('outbox_event_sequence_number_seq'),
+    ALTER COLUMN sequence_number SET NOT NULL;
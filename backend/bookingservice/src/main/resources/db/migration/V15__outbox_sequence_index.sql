@@ -0,0 +1,11 @@
+-- Outbox relay claims unsent messages in sequence order and checks each
+-- message key for messages still being published. Built concurrently so
+-- that the outbox stays writable.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS outbox_event_pending_sequence_idx
+    ON outbox_event (sequence_number)
+    WHERE sent_at IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS outbox_event_pending_key_idx
+    ON outbox_event (message_key)
+    WHERE sent_at IS NULL;
@@ -0,0 +1,6 @@
+-- Bulk cancellation walks the active bookings of an event in booking_id
+-- order, one chunk per transaction. Built concurrently so that existing
+-- booking tables stay writable; Flyway runs this script outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_active_event_id_idx
+    ON booking (eventid, booking_id)
+    WHERE (status = 'CONFIRMED' OR status = 'PENDING');
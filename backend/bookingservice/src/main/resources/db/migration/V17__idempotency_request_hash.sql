@@ -0,0 +1,16 @@
+-- Idempotency keys are matched on their own and checked against the request
+-- they were first sent with: a key reused on another endpoint, by another
+-- user or with a different body is refused instead of replaying a response.
+-- Rows stored before have no hash and are checked against user and event.
+
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS endpoint VARCHAR(255);
+ALTER TABLE idempotency_key ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64);
+
+-- A key several users sent while keys were scoped to the user keeps its newest use
+DELETE FROM idempotency_key older
+USING idempotency_key newer
+WHERE older.idempotency_key = newer.idempotency_key
+  AND (older.created_at, older.user_id) < (newer.created_at, newer.user_id);
+
+ALTER TABLE idempotency_key DROP CONSTRAINT IF EXISTS idempotency_key_pkey;
+ALTER TABLE idempotency_key ADD CONSTRAINT idempotency_key_pkey PRIMARY KEY (idempotency_key);
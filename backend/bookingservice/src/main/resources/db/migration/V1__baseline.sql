@@ -0,0 +1,34 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). Databases that
+-- already have these tables are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS booking (
+    booking_id UUID NOT NULL,
+    full_name VARCHAR(255),
+    email VARCHAR(255),
+    userid UUID,
+    eventid UUID,
+    price NUMERIC(38, 2),
+    status VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT booking_pkey PRIMARY KEY (booking_id),
+    CONSTRAINT booking_status_check CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED', 'REJECTED'))
+);
+
+CREATE TABLE IF NOT EXISTS seat_inventory (
+    event_id UUID NOT NULL,
+    capacity INTEGER NOT NULL,
+    reserved INTEGER NOT NULL,
+    updated_at TIMESTAMP(6),
+    CONSTRAINT seat_inventory_pkey PRIMARY KEY (event_id)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    outbox_event_id UUID NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255),
+    payload_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    sent_at TIMESTAMP(6),
+    CONSTRAINT outbox_event_pkey PRIMARY KEY (outbox_event_id)
+);
@@ -0,0 +1,25 @@
+-- Indexes for the booking hot paths. Built concurrently so that existing
+-- booking tables stay writable; Flyway runs this script outside a transaction.
+
+-- Seat counts, bulk cancellation and the active bookings of an event
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_active_event_idx
+    ON booking (eventid)
+    WHERE (status = 'CONFIRMED' OR status = 'PENDING');
+
+-- Keyset pages and exports of an event's bookings
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_event_created_idx
+    ON booking (eventid, created_at DESC, booking_id DESC);
+
+-- Keyset pages of a user's bookings, optionally filtered by event
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_user_created_idx
+    ON booking (userid, created_at DESC, booking_id DESC);
+
+-- Outbox relay only ever looks at unsent messages
+CREATE INDEX CONCURRENTLY IF NOT EXISTS outbox_event_pending_idx
+    ON outbox_event (created_at)
+    WHERE sent_at IS NULL;
+
+-- Purge of published messages
+CREATE INDEX CONCURRENTLY IF NOT EXISTS outbox_event_sent_idx
+    ON outbox_event (sent_at)
+    WHERE sent_at IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Pending bookings hold their seat until expires_at. Bookings that were
+-- already pending get the default 15 minute hold from their creation time.
+
+ALTER TABLE booking ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP(6);
+
+UPDATE booking
+SET expires_at = created_at + INTERVAL '15 minutes'
+WHERE status = 'PENDING' AND expires_at IS NULL;
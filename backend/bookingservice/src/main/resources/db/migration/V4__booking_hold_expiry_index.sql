@@ -0,0 +1,6 @@
+-- Expiry sweep only ever looks at pending bookings, oldest deadline first.
+-- Built concurrently so that the booking table stays writable.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_pending_expiry_idx
+    ON booking (expires_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,15 @@
+-- Responses of booking requests sent with an Idempotency-Key header, so that
+-- a retried request returns the original response instead of booking again.
+
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    user_id UUID NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    event_id UUID NOT NULL,
+    response_status INTEGER NOT NULL,
+    response_body TEXT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT idempotency_key_pkey PRIMARY KEY (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_key_created_idx
+    ON idempotency_key (created_at);
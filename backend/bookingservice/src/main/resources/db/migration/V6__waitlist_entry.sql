@@ -0,0 +1,17 @@
+-- Users queued for a sold-out event, promoted to a pending booking in
+-- created_at order when a seat is freed. One entry per user and event.
+
+CREATE TABLE IF NOT EXISTS waitlist_entry (
+    waitlist_entry_id UUID NOT NULL,
+    event_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    full_name VARCHAR(255),
+    email VARCHAR(255),
+    price NUMERIC(38, 2),
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT waitlist_entry_pkey PRIMARY KEY (waitlist_entry_id),
+    CONSTRAINT waitlist_entry_event_user_key UNIQUE (event_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS waitlist_entry_queue_idx
+    ON waitlist_entry (event_id, created_at, waitlist_entry_id);
@@ -0,0 +1,4 @@
+-- Bookings created together by a group booking share a group_id and are
+-- paid for with one payment.
+
+ALTER TABLE booking ADD COLUMN IF NOT EXISTS group_id UUID;
@@ -0,0 +1,6 @@
+-- Settlement of a group payment looks up the bookings of the group.
+-- Built concurrently so that the booking table stays writable.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS booking_group_idx
+    ON booking (group_id)
+    WHERE group_id IS NOT NULL;
@@ -0,0 +1,21 @@
+-- Blocks of seats leased by a booking instance for in-memory admission. The
+-- leased seats are counted in seat_inventory.reserved until the lease is
+-- released; bookings made from a lease reference it through lease_id.
+
+CREATE TABLE IF NOT EXISTS seat_lease (
+    lease_id UUID NOT NULL,
+    event_id UUID NOT NULL,
+    instance_id UUID NOT NULL,
+    seats INTEGER NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT seat_lease_pkey PRIMARY KEY (lease_id)
+);
+
+CREATE INDEX IF NOT EXISTS seat_lease_event_idx
+    ON seat_lease (event_id);
+
+CREATE INDEX IF NOT EXISTS seat_lease_expires_idx
+    ON seat_lease (expires_at);
+
+ALTER TABLE booking ADD COLUMN IF NOT EXISTS lease_id UUID;
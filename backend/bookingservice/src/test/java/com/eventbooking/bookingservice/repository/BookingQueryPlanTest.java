@@ -0,0 +1,189 @@
+package com.eventbooking.bookingservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the Flyway migrations against an embedded Postgres and checks that the
+ * booking hot queries are answered from an index. Sequential scans are
+ * disabled for the session, so the planner only picks one if no index fits.
+ */
+class BookingQueryPlanTest {
+    private static final UUID EVENT_ID = UUID.randomUUID();
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static EmbeddedPostgres postgres;
+
+    private static SingleConnectionDataSource dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = EmbeddedPostgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        String[] statuses = { "PENDING", "CONFIRMED", "CANCELLED", "REJECTED" };
+
+        for (int i = 0; i < 1000; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO booking (booking_id, full_name, email, userid, eventid, price, status, created_at, " +
+                            "expires_at) VALUES (?, 'Name', 'name@mail.com', ?, ?, 10, ?, ?, ?)",
+                    UUID.randomUUID(),
+                    i % 10 == 0 ? USER_ID : UUID.randomUUID(),
+                    i % 20 == 0 ? EVENT_ID : UUID.randomUUID(),
+                    statuses[i % statuses.length],
+                    Timestamp.valueOf(LocalDateTime.now().minusMinutes(i)),
+                    Timestamp.valueOf(LocalDateTime.now().minusMinutes(i - 15)));
+        }
+
+        jdbcTemplate.execute("ANALYZE");
+        jdbcTemplate.execute("SET enable_seqscan = off");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    @Test
+    void participantCountUsesIndex() throws Exception {
+        assertIndexed(nativeQuery(BookingRepository.class, "getParticipantCount", UUID.class), EVENT_ID);
+    }
+
+    @Test
+    void activeEventBookingsUseIndex() throws Exception {
+        assertIndexed(nativeQuery(BookingRepository.class, "getActiveEventBookings", UUID.class), EVENT_ID);
+    }
+
+    @Test
+    void bulkCancellationUsesIndex() {
+        assertIndexed("SELECT booking_id FROM (SELECT booking_id FROM booking " +
+                "WHERE eventID = ? AND (status = 'CONFIRMED' OR status = 'PENDING') AND booking_id > ? " +
+                "ORDER BY booking_id LIMIT ?) chunk ORDER BY booking_id DESC LIMIT 1", EVENT_ID, new UUID(0, 0), 500);
+
+        assertIndexed("UPDATE booking SET status = 'CANCELLED' FROM (" +
+                "SELECT booking_id AS cancelled_id, status AS previous_status FROM booking " +
+                "WHERE eventID = ? AND (status = 'CONFIRMED' OR status = 'PENDING') " +
+                "AND booking_id > ? AND booking_id <= ? FOR UPDATE) previous " +
+                "WHERE booking_id = previous.cancelled_id " +
+                "RETURNING " + BookingRowMapper.COLUMNS + ", previous_status",
+                EVENT_ID, new UUID(0, 0), UUID.randomUUID());
+    }
+
+    @Test
+    void expirySweepUsesIndex() {
+        assertIndexed("UPDATE booking SET status = 'REJECTED' WHERE booking_id IN (" +
+                "SELECT booking_id FROM booking WHERE status = 'PENDING' AND expires_at < ? " +
+                "ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                "RETURNING " + BookingRowMapper.COLUMNS,
+                Timestamp.valueOf(LocalDateTime.now()), 500);
+    }
+
+    @Test
+    void eventBookingPagesUseIndex() {
+        assertIndexed("SELECT * FROM booking WHERE eventid = ? " +
+                "ORDER BY created_at DESC, booking_id DESC LIMIT 100", EVENT_ID);
+
+        assertIndexed("SELECT * FROM booking WHERE eventid = ? " +
+                "AND (created_at < ? OR (created_at = ? AND booking_id < ?)) " +
+                "ORDER BY created_at DESC, booking_id DESC LIMIT 100",
+                EVENT_ID, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()),
+                UUID.randomUUID());
+    }
+
+    @Test
+    void userBookingPagesUseIndex() {
+        assertIndexed("SELECT * FROM booking WHERE userid = ? " +
+                "ORDER BY created_at DESC, booking_id DESC LIMIT 100", USER_ID);
+
+        assertIndexed("SELECT * FROM booking WHERE userid = ? AND eventid = ? " +
+                "AND (created_at < ? OR (created_at = ? AND booking_id < ?)) " +
+                "ORDER BY created_at DESC, booking_id DESC LIMIT 100",
+                USER_ID, EVENT_ID, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()),
+                UUID.randomUUID());
+    }
+
+    @Test
+    void eventBookingExportUsesIndex() {
+        assertIndexed("SELECT " + BookingRowMapper.COLUMNS + " FROM booking WHERE eventid = ? " +
+                "ORDER BY created_at, booking_id", EVENT_ID);
+    }
+
+    @Test
+    void leaseBookingCountUsesIndex() throws Exception {
+        assertIndexed(nativeQuery(BookingRepository.class, "countLeaseBookings", UUID.class), UUID.randomUUID());
+    }
+
+    @Test
+    void bookingStatsUseIndex() {
+        assertIndexed("SELECT pending, confirmed, cancelled, rejected, revenue FROM booking_stats " +
+                "WHERE event_id = ? UNION ALL " +
+                "SELECT pending, confirmed, cancelled, rejected, revenue FROM booking_stats_delta " +
+                "WHERE event_id = ?", EVENT_ID, EVENT_ID);
+
+        assertIndexed("SELECT booked_hour, bookings FROM booking_stats_hourly WHERE event_id = ? UNION ALL " +
+                "SELECT booked_hour, bookings FROM booking_stats_delta " +
+                "WHERE event_id = ? AND booked_hour IS NOT NULL", EVENT_ID, EVENT_ID);
+    }
+
+    @Test
+    void waitlistHeadUsesIndex() throws Exception {
+        assertIndexed(nativeQuery(WaitlistEntryRepository.class, "lockHead", UUID.class), EVENT_ID);
+    }
+
+    @Test
+    void outboxRelayUsesIndex() {
+        assertIndexed("UPDATE outbox_event SET claimed_until = NOW() + ? * INTERVAL '1 millisecond' " +
+                "WHERE outbox_event_id IN (" +
+                "SELECT outbox_event_id FROM outbox_event pending " +
+                "WHERE sent_at IS NULL AND (claimed_until IS NULL OR claimed_until < NOW()) " +
+                "AND NOT EXISTS (SELECT 1 FROM outbox_event claimed " +
+                "WHERE claimed.message_key = pending.message_key AND claimed.sent_at IS NULL " +
+                "AND claimed.claimed_until >= NOW()) " +
+                "ORDER BY sequence_number LIMIT ?) " +
+                "RETURNING outbox_event_id, topic, message_key, payload_type, payload, sequence_number",
+                60000, 500);
+    }
+
+    private static String nativeQuery(Class<?> repository, String name, Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        Method method = repository.getMethod(name, parameterTypes);
+        return method.getAnnotation(Query.class).value().replaceAll("\\?\\d+", "?");
+    }
+
+    private static void assertIndexed(String sql, Object... parameters) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters);
+
+        assertThat(plan)
+                .as("Query plan of %s", sql)
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+}
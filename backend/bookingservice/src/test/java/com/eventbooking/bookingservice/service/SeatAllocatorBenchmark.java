@@ -0,0 +1,101 @@
+package com.eventbooking.bookingservice.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Seat admission throughput of one hot event: the striped allocator against a
+ * single lock-protected counter, the in-memory equivalent of every booking
+ * updating the same seat_inventory row. Lease round trips are simulated with
+ * a short pause while the lock of the counter is held.
+ *
+ * Not part of the test run. Start it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.bookingservice.service.SeatAllocatorBenchmark}
+ * and compare the scores per thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeatAllocatorBenchmark {
+    private static final UUID EVENT_ID = UUID.randomUUID();
+
+    // Time the counter row stays locked by one reservation
+    private static final long ROW_UPDATE_NANOS = 2_000;
+
+    private StripedSeatAllocator allocator;
+
+    private final ReentrantLock counterLock = new ReentrantLock();
+
+    private long reserved;
+
+    @Setup
+    public void setUp() {
+        allocator = new StripedSeatAllocator(new StripedSeatAllocator.LeaseSource() {
+            @Override
+            public StripedSeatAllocator.Lease lease(UUID eventID) {
+                reserveOnCounter();
+                return new StripedSeatAllocator.Lease(UUID.randomUUID(), eventID, 1_000);
+            }
+
+            @Override
+            public void release(StripedSeatAllocator.Lease lease) {
+            }
+        }, Runtime.getRuntime().availableProcessors(), Duration.ZERO, Runnable::run);
+    }
+
+    @Benchmark
+    public StripedSeatAllocator.Lease striped() {
+        return allocator.acquire(EVENT_ID);
+    }
+
+    @Benchmark
+    public long singleCounter() {
+        return reserveOnCounter();
+    }
+
+    private long reserveOnCounter() {
+        counterLock.lock();
+
+        try {
+            long until = System.nanoTime() + ROW_UPDATE_NANOS;
+
+            while (System.nanoTime() < until)
+                Thread.onSpinWait();
+
+            return ++reserved;
+        } finally {
+            counterLock.unlock();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(SeatAllocatorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.eventbooking.bookingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multi-threaded stress tests of the striped allocator against an in-memory
+ * model of the seat counter and lease table, following the protocol of
+ * {@link SeatLeaseService}: a booking pins its lease, a release waits for the
+ * pinned bookings and only returns the seats that were not booked.
+ */
+class StripedSeatAllocatorTest {
+    private static final UUID EVENT_ID = UUID.randomUUID();
+
+    @Test
+    void neverOversellsAndSellsOut() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            SeatCounter counter = new SeatCounter(5_000, 16, 64);
+            StripedSeatAllocator allocator = new StripedSeatAllocator(counter, 4, Duration.ZERO, Runnable::run);
+
+            int booked = runBookings(counter, allocator, 8, 0.1, false);
+
+            allocator.releaseAll();
+
+            assertThat(booked).isEqualTo(5_000);
+            assertThat(counter.reserved.get()).isEqualTo(5_000);
+            assertThat(counter.leases).isEmpty();
+        }
+    }
+
+    @Test
+    void neverOversellsWhileLeasesAreReleased() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            SeatCounter counter = new SeatCounter(5_000, 16, 64);
+            StripedSeatAllocator allocator = new StripedSeatAllocator(counter, 4, Duration.ZERO, Runnable::run);
+
+            int booked = runBookings(counter, allocator, 8, 0.1, true);
+
+            allocator.releaseAll();
+
+            assertThat(booked).isEqualTo(5_000);
+            assertThat(counter.reserved.get()).isEqualTo(5_000);
+            assertThat(counter.leases).isEmpty();
+        }
+    }
+
+    @Test
+    void neverOversellsWhileRefilledInTheBackground() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            SeatCounter counter = new SeatCounter(5_000, 16, 64);
+            ExecutorService refillExecutor = Executors.newSingleThreadExecutor();
+            StripedSeatAllocator allocator = new StripedSeatAllocator(counter, 4, Duration.ZERO, refillExecutor);
+
+            int booked = runBookings(counter, allocator, 8, 0.1, true);
+
+            refillExecutor.shutdown();
+            assertThat(refillExecutor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+            allocator.releaseAll();
+
+            assertThat(booked).isEqualTo(5_000);
+            assertThat(counter.reserved.get()).isEqualTo(5_000);
+            assertThat(counter.leases).isEmpty();
+        }
+    }
+
+    @Test
+    void returnsUnusedSeatsOnRelease() {
+        SeatCounter counter = new SeatCounter(1_000, 20, 100);
+        StripedSeatAllocator allocator = new StripedSeatAllocator(counter, 4, Duration.ZERO, Runnable::run);
+
+        for (int i = 0; i < 5; i++)
+            assertThat(counter.book(allocator.acquire(EVENT_ID))).isTrue();
+
+        assertThat(counter.reserved.get()).isEqualTo(20);
+        assertThat(allocator.available(EVENT_ID)).isEqualTo(15);
+
+        allocator.releaseAll();
+
+        assertThat(counter.reserved.get()).isEqualTo(5);
+        assertThat(allocator.available(EVENT_ID)).isZero();
+    }
+
+    @Test
+    void stopsLeasingNearSellOut() {
+        SeatCounter counter = new SeatCounter(150, 20, 100);
+        StripedSeatAllocator allocator = new StripedSeatAllocator(counter, 4, Duration.ofMinutes(1), Runnable::run);
+
+        int leased = 0;
+        StripedSeatAllocator.Lease lease;
+
+        while ((lease = allocator.acquire(EVENT_ID)) != null) {
+            assertThat(counter.book(lease)).isTrue();
+            leased++;
+        }
+
+        // Leases stop once fewer than 100 seats would stay free on the counter
+        assertThat(leased).isEqualTo(60);
+        assertThat(counter.capacity - counter.reserved.get()).isEqualTo(90);
+    }
+
+    /**
+     * Books seats from the given number of threads until the event is sold
+     * out. Like the booking service, a thread that gets no leased seat
+     * reserves one on the counter directly; a fraction of the bookings roll
+     * back and give their seat back.
+     *
+     * @return the number of bookings made
+     */
+    private int runBookings(SeatCounter counter, StripedSeatAllocator allocator, int threads, double rollbackRate,
+            boolean releaseConcurrently) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<Integer>> workers = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+
+                    int booked = 0;
+
+                    while (true) {
+                        StripedSeatAllocator.Lease lease = allocator.acquire(EVENT_ID);
+
+                        if (lease != null && ThreadLocalRandom.current().nextDouble() < rollbackRate) {
+                            allocator.giveBack(lease);
+                            continue;
+                        }
+
+                        if (lease != null && counter.book(lease)) {
+                            booked++;
+                            continue;
+                        }
+
+                        if (lease != null)
+                            allocator.invalidate(lease);
+
+                        if (counter.reserveDirectly()) {
+                            booked++;
+                            continue;
+                        }
+
+                        // Sold out on the counter, the seats still in leases go next
+                        if (counter.reserved.get() == counter.capacity && allocator.available(EVENT_ID) == 0
+                                && counter.unusedLeasedSeats() == 0)
+                            return booked;
+
+                        if (allocator.available(EVENT_ID) == 0)
+                            allocator.releaseIdle(Duration.ZERO);
+                    }
+                }));
+            }
+
+            Future<?> releaser = executor.submit(() -> {
+                start.await();
+
+                while (releaseConcurrently && !done.get()) {
+                    allocator.releaseIdle(Duration.ZERO);
+                    Thread.onSpinWait();
+                }
+
+                return null;
+            });
+
+            start.countDown();
+
+            int booked = 0;
+
+            for (Future<Integer> worker : workers)
+                booked += worker.get(60, TimeUnit.SECONDS);
+
+            done.set(true);
+            releaser.get(10, TimeUnit.SECONDS);
+
+            return booked;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The seat counter row and the lease table. Reads and writes of a lease
+     * are guarded by a read/write lock, standing in for the key share lock of
+     * a booking and the update lock of a release.
+     */
+    private static final class SeatCounter implements StripedSeatAllocator.LeaseSource {
+        private final int capacity;
+
+        private final int blockSize;
+
+        private final int minFree;
+
+        private final AtomicInteger reserved = new AtomicInteger();
+
+        private final Map<UUID, LeaseRow> leases = new ConcurrentHashMap<>();
+
+        private SeatCounter(int capacity, int blockSize, int minFree) {
+            this.capacity = capacity;
+            this.blockSize = blockSize;
+            this.minFree = minFree;
+        }
+
+        @Override
+        public StripedSeatAllocator.Lease lease(UUID eventID) {
+            while (true) {
+                int current = reserved.get();
+
+                if (capacity - current < Math.max(blockSize, minFree))
+                    return null;
+
+                if (reserved.compareAndSet(current, current + blockSize)) {
+                    UUID id = UUID.randomUUID();
+                    leases.put(id, new LeaseRow(blockSize));
+                    return new StripedSeatAllocator.Lease(id, eventID, blockSize);
+                }
+            }
+        }
+
+        @Override
+        public void release(StripedSeatAllocator.Lease lease) {
+            LeaseRow row = leases.get(lease.id());
+
+            if (row == null)
+                return;
+
+            row.lock.writeLock().lock();
+
+            try {
+                if (leases.remove(lease.id()) != null)
+                    reserved.addAndGet(-(row.seats - row.bookings.get()));
+            } finally {
+                row.lock.writeLock().unlock();
+            }
+        }
+
+        // Pins the lease and inserts the booking, fails if the lease is gone
+        private boolean book(StripedSeatAllocator.Lease lease) {
+            LeaseRow row = leases.get(lease.id());
+
+            if (row == null)
+                return false;
+
+            row.lock.readLock().lock();
+
+            try {
+                if (!leases.containsKey(lease.id()))
+                    return false;
+
+                int bookings = row.bookings.incrementAndGet();
+
+                assertThat(bookings).as("Bookings of lease %s", lease.id()).isLessThanOrEqualTo(row.seats);
+
+                return true;
+            } finally {
+                row.lock.readLock().unlock();
+            }
+        }
+
+        private boolean reserveDirectly() {
+            while (true) {
+                int current = reserved.get();
+
+                if (current >= capacity)
+                    return false;
+
+                if (reserved.compareAndSet(current, current + 1))
+                    return true;
+            }
+        }
+
+        private int unusedLeasedSeats() {
+            return leases.values().stream().mapToInt(row -> row.seats - row.bookings.get()).sum();
+        }
+    }
+
+    private static final class LeaseRow {
+        private final int seats;
+
+        private final AtomicInteger bookings = new AtomicInteger();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private LeaseRow(int seats) {
+            this.seats = seats;
+        }
+    }
+}
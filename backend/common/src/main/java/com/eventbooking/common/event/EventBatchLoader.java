@@ -0,0 +1,143 @@
+package com.eventbooking.common.event;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces single-event lookups into calls to eventservice's batch endpoint,
+ * read into each service's own event class. A lookup waits at most
+ * windowMillis for others to join it, or until maxBatchSize events are
+ * waiting, and lookups of the same event share one result. An event that does
+ * not exist fails with a 404 WebClientResponseException, as a call to
+ * GET /api/events/{eventID} would.
+ */
+@Slf4j
+public class EventBatchLoader<E> {
+    public static final String BATCH_URI = "http://eventservice:8080/api/events/batch";
+
+    private final WebClient.Builder webClientBuilder;
+
+    private final Class<E> eventType;
+
+    private final Function<E, UUID> eventID;
+
+    private final String serviceToken;
+
+    private final long windowMillis;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-batch-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Lookups waiting for the next batch
+    private Map<UUID, CompletableFuture<E>> pending = new HashMap<>();
+
+    /**
+     * @param serviceToken presented to eventservice, which only answers batch
+     *                     lookups from the other services
+     */
+    public EventBatchLoader(WebClient.Builder webClientBuilder, Class<E> eventType, Function<E, UUID> eventID,
+            String serviceToken, long windowMillis, int maxBatchSize) {
+        this.webClientBuilder = webClientBuilder;
+        this.eventType = eventType;
+        this.eventID = eventID;
+        this.serviceToken = serviceToken;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public CompletableFuture<E> load(UUID eventID) {
+        CompletableFuture<E> lookup;
+        Map<UUID, CompletableFuture<E>> full = null;
+
+        synchronized (this) {
+            lookup = pending.get(eventID);
+
+            if (lookup == null) {
+                lookup = new CompletableFuture<>();
+                pending.put(eventID, lookup);
+
+                if (pending.size() == 1)
+                    scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+
+                if (pending.size() >= maxBatchSize)
+                    full = drain();
+            }
+        }
+
+        if (full != null)
+            send(full);
+
+        // A caller that cancels its copy does not cancel the shared lookup
+        return lookup.copy();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush() {
+        Map<UUID, CompletableFuture<E>> batch;
+
+        synchronized (this) {
+            batch = drain();
+        }
+
+        if (!batch.isEmpty())
+            send(batch);
+    }
+
+    private Map<UUID, CompletableFuture<E>> drain() {
+        Map<UUID, CompletableFuture<E>> batch = pending;
+        pending = new HashMap<>();
+        return batch;
+    }
+
+    private void send(Map<UUID, CompletableFuture<E>> batch) {
+        log.debug("Looking up {} events in one batch", batch.size());
+
+        webClientBuilder
+                .build()
+                .post()
+                .uri(BATCH_URI)
+                .header(ServiceToken.HEADER, serviceToken)
+                .bodyValue(batch.keySet())
+                .retrieve()
+                .bodyToFlux(eventType)
+                .collectList()
+                .subscribe(events -> complete(batch, events),
+                        e -> batch.values().forEach(lookup -> lookup.completeExceptionally(e)));
+    }
+
+    private void complete(Map<UUID, CompletableFuture<E>> batch, List<E> events) {
+        for (E event : events) {
+            CompletableFuture<E> lookup = batch.remove(eventID.apply(event));
+
+            if (lookup != null)
+                lookup.complete(event);
+        }
+
+        // Whatever is left was not returned, so it does not exist
+        batch.forEach((eventID, lookup) -> lookup.completeExceptionally(WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Event " + eventID + " not found", HttpHeaders.EMPTY, new byte[0],
+                null)));
+    }
+}
@@ -0,0 +1,28 @@
+package com.eventbooking.common.event;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * The shared secret one service presents to another on internal endpoints,
+ * which are reachable from inside the network without going through the
+ * gateway.
+ */
+public final class ServiceToken {
+    public static final String HEADER = "X-Service-Token";
+
+    private ServiceToken() {
+    }
+
+    /**
+     * Compares in constant time. Nothing matches an unset token, so an
+     * endpoint without one configured stays closed.
+     */
+    public static boolean matches(String expected, String presented) {
+        if (expected == null || expected.isEmpty() || presented == null)
+            return false;
+
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
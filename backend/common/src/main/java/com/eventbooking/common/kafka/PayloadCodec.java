@@ -0,0 +1,510 @@
+package com.eventbooking.common.kafka;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Binary encoding of the Kafka payloads exchanged between the services.
+ * <p>
+ * A message is {@link #MAGIC}, the tag of its {@link PayloadSchema} and the
+ * fields of the schema in order. Each service maps the schemas it reads or
+ * writes to its own DTO classes, whose properties are read and set by field
+ * name. A mapping is checked when the codec is created: every field of the
+ * schema must be a property of the class with a matching type.
+ */
+public final class PayloadCodec {
+    /** First byte of every binary payload, JSON never starts with it */
+    public static final byte MAGIC = 0;
+
+    /**
+     * Serializer and deserializer property mapping schemas to classes, as
+     * comma-separated {@code schema:class} pairs such as
+     * {@code booking:com.example.BookingDTO}
+     */
+    public static final String TYPE_MAPPING = "payload.type.mapping";
+
+    private final Map<PayloadSchema, Binding> bindings = new EnumMap<>(PayloadSchema.class);
+
+    private final Map<Class<?>, Binding> bindingsByType = new HashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if a class does not have the fields of
+     *                                  its schema
+     */
+    public PayloadCodec(Map<PayloadSchema, Class<?>> types) {
+        types.forEach((schema, type) -> {
+            if (schema == PayloadSchema.BOOKING_LIST)
+                throw new IllegalArgumentException("Booking lists are read into lists of the BOOKING class");
+
+            Binding binding = new Binding(schema, type);
+
+            bindings.put(schema, binding);
+            bindingsByType.put(type, binding);
+        });
+
+        if (bindings.containsKey(PayloadSchema.GROUP_BOOKING) && !bindings.containsKey(PayloadSchema.BOOKING))
+            throw new IllegalArgumentException("Group bookings need a class for the BOOKING schema");
+    }
+
+    /**
+     * @param mapping comma-separated {@code schema:class} pairs, see
+     *                {@link #TYPE_MAPPING}
+     * @throws IllegalArgumentException if the mapping is malformed or a class
+     *                                  does not have the fields of its schema
+     */
+    public static PayloadCodec forTypeMapping(String mapping) {
+        Map<PayloadSchema, Class<?>> types = new EnumMap<>(PayloadSchema.class);
+
+        for (String entry : StringUtils.commaDelimitedListToStringArray(mapping)) {
+            String[] parts = entry.trim().split(":");
+
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid payload type mapping " + entry);
+
+            try {
+                types.put(PayloadSchema.valueOf(parts[0].trim().toUpperCase()), ClassUtils.forName(parts[1].trim(),
+                        null));
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new IllegalArgumentException("Invalid payload type mapping " + entry, e);
+            }
+        }
+
+        return new PayloadCodec(types);
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload's class is not mapped
+     */
+    public byte[] encode(Object payload) {
+        Writer writer = new Writer();
+
+        if (payload instanceof List<?> bookings) {
+            writer.writeTag(PayloadSchema.BOOKING_LIST.getTag());
+            writeBookings(writer, bookings);
+        } else {
+            Binding binding = payload == null ? null : bindingsByType.get(payload.getClass());
+
+            if (binding == null)
+                throw new IllegalArgumentException("No payload schema for "
+                        + (payload == null ? "null" : payload.getClass().getName()));
+
+            writer.writeTag(binding.schema.getTag());
+            write(writer, binding, payload);
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is malformed or its schema
+     *                                  is not mapped
+     */
+    public Object decode(byte[] data) {
+        if (!isEncoded(data))
+            throw new IllegalArgumentException("Not a binary payload");
+
+        PayloadSchema schema = PayloadSchema.fromTag(data[1]);
+        Reader reader = new Reader(data);
+
+        if (schema == PayloadSchema.BOOKING_LIST)
+            return readBookings(reader);
+
+        return read(reader, binding(schema));
+    }
+
+    private Binding binding(PayloadSchema schema) {
+        Binding binding = bindings.get(schema);
+
+        if (binding == null)
+            throw new IllegalArgumentException("Unknown payload schema " + schema.getTag());
+
+        return binding;
+    }
+
+    private void write(Writer writer, Binding binding, Object payload) {
+        List<PayloadSchema.Field> fields = binding.schema.getFields();
+
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = binding.get(i, payload);
+
+            switch (fields.get(i).type()) {
+                case UUID -> writer.writeUUID((UUID) value);
+                case STRING -> writer.writeString(value instanceof Enum<?> constant ? constant.name() : (String) value);
+                case DECIMAL -> writer.writeDecimal((BigDecimal) value);
+                case DATE_TIME -> writer.writeDateTime((LocalDateTime) value);
+                case INTEGER -> writer.writeInteger((Integer) value);
+                case BOOKINGS -> writeBookings(writer, (List<?>) value);
+            }
+        }
+    }
+
+    private void writeBookings(Writer writer, List<?> bookings) {
+        Binding binding = binding(PayloadSchema.BOOKING);
+
+        writer.writeCount(bookings == null ? 0 : bookings.size());
+
+        if (bookings == null)
+            return;
+
+        for (Object booking : bookings) {
+            if (booking == null || booking.getClass() != binding.type)
+                throw new IllegalArgumentException("No payload schema for a list of "
+                        + (booking == null ? "null" : booking.getClass().getName()));
+
+            write(writer, binding, booking);
+        }
+    }
+
+    private Object read(Reader reader, Binding binding) {
+        Object payload = binding.newInstance();
+        List<PayloadSchema.Field> fields = binding.schema.getFields();
+
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = switch (fields.get(i).type()) {
+                case UUID -> reader.readUUID();
+                case STRING -> reader.readString();
+                case DECIMAL -> reader.readDecimal();
+                case DATE_TIME -> reader.readDateTime();
+                case INTEGER -> reader.readInteger();
+                case BOOKINGS -> readBookings(reader);
+            };
+
+            binding.set(i, payload, value);
+        }
+
+        return payload;
+    }
+
+    private List<Object> readBookings(Reader reader) {
+        Binding binding = binding(PayloadSchema.BOOKING);
+        int count = reader.readCount();
+        List<Object> bookings = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            bookings.add(read(reader, binding));
+
+        return bookings;
+    }
+
+    /**
+     * The accessors of a class for the fields of its schema, in field order.
+     */
+    private static final class Binding {
+        private final PayloadSchema schema;
+
+        private final Class<?> type;
+
+        private final Constructor<?> constructor;
+
+        private final Method[] getters;
+
+        private final Method[] setters;
+
+        Binding(PayloadSchema schema, Class<?> type) {
+            this.schema = schema;
+            this.type = type;
+
+            List<PayloadSchema.Field> fields = schema.getFields();
+            Map<String, PropertyDescriptor> properties = new HashMap<>();
+
+            try {
+                constructor = type.getConstructor();
+
+                for (PropertyDescriptor property : Introspector.getBeanInfo(type).getPropertyDescriptors())
+                    properties.put(property.getName(), property);
+            } catch (NoSuchMethodException | IntrospectionException e) {
+                throw new IllegalArgumentException(type.getName() + " cannot be read into", e);
+            }
+
+            getters = new Method[fields.size()];
+            setters = new Method[fields.size()];
+
+            for (int i = 0; i < fields.size(); i++) {
+                PayloadSchema.Field field = fields.get(i);
+                PropertyDescriptor property = properties.get(field.name());
+
+                if (property == null || property.getReadMethod() == null || property.getWriteMethod() == null)
+                    throw new IllegalArgumentException(type.getName() + " has no property " + field.name()
+                            + " of the " + schema + " schema");
+
+                if (!accepts(field.type(), property.getPropertyType()))
+                    throw new IllegalArgumentException(type.getName() + "." + field.name() + " cannot hold the "
+                            + field.type() + " field of the " + schema + " schema");
+
+                getters[i] = property.getReadMethod();
+                setters[i] = property.getWriteMethod();
+            }
+        }
+
+        Object newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create " + type.getName(), e);
+            }
+        }
+
+        Object get(int field, Object payload) {
+            try {
+                return getters[field].invoke(payload);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Cannot read " + getters[field], e);
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        void set(int field, Object payload, Object value) {
+            Class<?> propertyType = setters[field].getParameterTypes()[0];
+
+            // Primitive properties keep their default for a null field
+            if (value == null && propertyType.isPrimitive())
+                return;
+
+            if (value instanceof String name && propertyType.isEnum())
+                value = Enum.valueOf((Class<Enum>) propertyType, name);
+
+            try {
+                setters[field].invoke(payload, value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Cannot set " + setters[field], e);
+            }
+        }
+
+        private static boolean accepts(PayloadSchema.FieldType fieldType, Class<?> propertyType) {
+            return switch (fieldType) {
+                case UUID -> propertyType == UUID.class;
+                case STRING -> propertyType == String.class || propertyType.isEnum();
+                case DECIMAL -> propertyType == BigDecimal.class;
+                case DATE_TIME -> propertyType == LocalDateTime.class;
+                case INTEGER -> propertyType == Integer.class || propertyType == int.class;
+                case BOOKINGS -> propertyType == List.class;
+            };
+        }
+    }
+
+    static final class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+        void writeTag(byte tag) {
+            out.write(MAGIC);
+            out.write(tag);
+        }
+
+        void writeUUID(UUID value) {
+            if (writeNull(value))
+                return;
+
+            writeFixedLong(value.getMostSignificantBits());
+            writeFixedLong(value.getLeastSignificantBits());
+        }
+
+        void writeInteger(Integer value) {
+            if (writeNull(value))
+                return;
+
+            writeVarLong(value);
+        }
+
+        void writeCount(int count) {
+            writeVarLong(count);
+        }
+
+        // Null is written as length -1
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(-1);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            writeVarLong(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (writeNull(value))
+                return;
+
+            byte[] unscaled = value.unscaledValue().toByteArray();
+
+            writeVarLong(value.scale());
+            writeVarLong(unscaled.length);
+            out.write(unscaled, 0, unscaled.length);
+        }
+
+        void writeDateTime(LocalDateTime value) {
+            if (writeNull(value))
+                return;
+
+            writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(value.getNano());
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private boolean writeNull(Object value) {
+            out.write(value == null ? 0 : 1);
+            return value == null;
+        }
+
+        private void writeFixedLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8)
+                out.write((int) (value >>> shift));
+        }
+
+        private void writeVarLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+
+            while ((zigZag & ~0x7FL) != 0) {
+                out.write((int) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+
+            out.write((int) zigZag);
+        }
+    }
+
+    static final class Reader {
+        private final byte[] data;
+
+        private int position = 2;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        UUID readUUID() {
+            if (readNull())
+                return null;
+
+            long mostSignificantBits = readFixedLong();
+
+            return new UUID(mostSignificantBits, readFixedLong());
+        }
+
+        Integer readInteger() {
+            if (readNull())
+                return null;
+
+            return Math.toIntExact(readVarLong());
+        }
+
+        int readCount() {
+            return readLength();
+        }
+
+        String readString() {
+            long length = readVarLong();
+
+            if (length == -1)
+                return null;
+
+            int size = checkLength(length);
+            String value = new String(data, position, size, StandardCharsets.UTF_8);
+
+            position += size;
+
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            if (readNull())
+                return null;
+
+            int scale = Math.toIntExact(readVarLong());
+            int size = readLength();
+
+            if (size == 0)
+                throw new IllegalArgumentException("Empty decimal at byte " + position);
+
+            BigInteger unscaled = new BigInteger(data, position, size);
+
+            position += size;
+
+            return new BigDecimal(unscaled, scale);
+        }
+
+        LocalDateTime readDateTime() {
+            if (readNull())
+                return null;
+
+            long epochSecond = readVarLong();
+
+            return LocalDateTime.ofEpochSecond(epochSecond, Math.toIntExact(readVarLong()), ZoneOffset.UTC);
+        }
+
+        private boolean readNull() {
+            return readByte() == 0;
+        }
+
+        private int readLength() {
+            return checkLength(readVarLong());
+        }
+
+        private int checkLength(long length) {
+            if (length < 0 || length > data.length - position)
+                throw new IllegalArgumentException("Invalid length " + length + " at byte " + position);
+
+            return (int) length;
+        }
+
+        private int readByte() {
+            if (position >= data.length)
+                throw new IllegalArgumentException("Payload ends at byte " + position);
+
+            return data[position++] & 0xFF;
+        }
+
+        private long readFixedLong() {
+            long value = 0;
+
+            for (int i = 0; i < 8; i++)
+                value = (value << 8) | readByte();
+
+            return value;
+        }
+
+        private long readVarLong() {
+            long zigZag = 0;
+            int shift = 0;
+            int b;
+
+            do {
+                if (shift > 63)
+                    throw new IllegalArgumentException("Invalid varint at byte " + position);
+
+                b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.eventbooking.common.kafka;
+
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka value deserializer reading the binary encoding of
+ * {@link PayloadCodec} into the classes mapped by the
+ * {@value PayloadCodec#TYPE_MAPPING} property. JSON messages produced before
+ * the switch to the binary encoding are still read with the configured
+ * {@code spring.json.*} type mappings.
+ */
+public class PayloadDeserializer implements Deserializer<Object> {
+    private final JsonDeserializer<Object> legacyDeserializer = new JsonDeserializer<>();
+
+    private PayloadCodec codec;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object mapping = configs.get(PayloadCodec.TYPE_MAPPING);
+
+        codec = PayloadCodec.forTypeMapping(mapping == null ? "" : mapping.toString());
+        legacyDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null)
+            return null;
+
+        if (!PayloadCodec.isEncoded(data))
+            return legacyDeserializer.deserialize(topic, data);
+
+        return decode(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null)
+            return null;
+
+        if (!PayloadCodec.isEncoded(data))
+            return legacyDeserializer.deserialize(topic, headers, data);
+
+        return decode(topic, data);
+    }
+
+    @Override
+    public void close() {
+        legacyDeserializer.close();
+    }
+
+    private Object decode(String topic, byte[] data) {
+        try {
+            return codec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot deserialize payload from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.eventbooking.common.kafka;
+
+import java.util.List;
+
+/**
+ * The Kafka payloads exchanged between the services and the order of their
+ * fields, the single definition every producer and consumer encodes with.
+ * <p>
+ * A schema is never changed in place: a changed payload gets a new tag, and
+ * its consumers are deployed before its producers.
+ */
+public enum PayloadSchema {
+    BOOKING(1,
+            field("id", FieldType.UUID),
+            field("fullName", FieldType.STRING),
+            field("email", FieldType.STRING),
+            field("userID", FieldType.UUID),
+            field("eventID", FieldType.UUID),
+            field("groupID", FieldType.UUID),
+            field("price", FieldType.DECIMAL),
+            field("status", FieldType.STRING),
+            field("createdAt", FieldType.DATE_TIME)),
+
+    /** A count followed by the BOOKING fields of each booking */
+    BOOKING_LIST(2),
+
+    GROUP_BOOKING(3,
+            field("id", FieldType.UUID),
+            field("userID", FieldType.UUID),
+            field("eventID", FieldType.UUID),
+            field("totalPrice", FieldType.DECIMAL),
+            field("bookings", FieldType.BOOKINGS)),
+
+    PAYMENT(4,
+            field("id", FieldType.UUID),
+            field("amount", FieldType.DECIMAL),
+            field("userID", FieldType.UUID),
+            field("bookingID", FieldType.UUID),
+            field("status", FieldType.STRING),
+            field("createdAt", FieldType.DATE_TIME)),
+
+    EVENT(5,
+            field("id", FieldType.UUID),
+            field("title", FieldType.STRING),
+            field("description", FieldType.STRING),
+            field("categoryID", FieldType.UUID),
+            field("categoryName", FieldType.STRING),
+            field("price", FieldType.DECIMAL),
+            field("street", FieldType.STRING),
+            field("city", FieldType.STRING),
+            field("state", FieldType.STRING),
+            field("zipCode", FieldType.STRING),
+            field("country", FieldType.STRING),
+            field("startDateTime", FieldType.DATE_TIME),
+            field("capacity", FieldType.INTEGER),
+            field("status", FieldType.STRING),
+            field("organizerID", FieldType.UUID),
+            field("createdAt", FieldType.DATE_TIME),
+            field("updatedAt", FieldType.DATE_TIME)),
+
+    REVIEW(6,
+            field("id", FieldType.UUID),
+            field("rating", FieldType.INTEGER),
+            field("title", FieldType.STRING),
+            field("description", FieldType.STRING),
+            field("userID", FieldType.UUID),
+            field("username", FieldType.STRING),
+            field("eventID", FieldType.UUID),
+            field("createdAt", FieldType.DATE_TIME));
+
+    /**
+     * How a field is encoded. UUIDs take 16 bytes, whole numbers are zig-zag
+     * varints, decimals are a scale and the unscaled two's-complement bytes,
+     * date-times are epoch seconds and nanos, strings (and enums, by name) are
+     * length-prefixed UTF-8, and bookings are a count followed by the BOOKING
+     * fields of each booking. Every field may be null.
+     */
+    public enum FieldType {
+        UUID, STRING, DECIMAL, DATE_TIME, INTEGER, BOOKINGS
+    }
+
+    public record Field(String name, FieldType type) {
+    }
+
+    private final byte tag;
+
+    private final List<Field> fields;
+
+    PayloadSchema(int tag, Field... fields) {
+        this.tag = (byte) tag;
+        this.fields = List.of(fields);
+    }
+
+    public byte getTag() {
+        return tag;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no schema has the tag
+     */
+    public static PayloadSchema fromTag(byte tag) {
+        for (PayloadSchema schema : values())
+            if (schema.tag == tag)
+                return schema;
+
+        throw new IllegalArgumentException("Unknown payload schema " + tag);
+    }
+
+    private static Field field(String name, FieldType type) {
+        return new Field(name, type);
+    }
+}
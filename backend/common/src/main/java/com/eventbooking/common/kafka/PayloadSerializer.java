@@ -0,0 +1,38 @@
+package com.eventbooking.common.kafka;
+
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer writing the binary encoding of {@link PayloadCodec}
+ * for the classes mapped by the {@value PayloadCodec#TYPE_MAPPING} property.
+ * Payloads that are already encoded, like the ones relayed from an outbox,
+ * are sent as they are.
+ */
+public class PayloadSerializer implements Serializer<Object> {
+    private PayloadCodec codec;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object mapping = configs.get(PayloadCodec.TYPE_MAPPING);
+
+        codec = PayloadCodec.forTypeMapping(mapping == null ? "" : mapping.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null)
+            return null;
+
+        if (data instanceof byte[] encoded)
+            return encoded;
+
+        try {
+            return codec.encode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot serialize payload for topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.eventbooking.common.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import lombok.Data;
+import reactor.core.publisher.Mono;
+
+/**
+ * Checks that concurrent lookups are merged into one batch request against a
+ * stubbed eventservice that knows two events.
+ */
+class EventBatchLoaderTest {
+    private static final UUID FIRST_ID = UUID.randomUUID();
+
+    private static final UUID SECOND_ID = UUID.randomUUID();
+
+    private static final String SERVICE_TOKEN = "service-token";
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicReference<String> presentedToken = new AtomicReference<>();
+
+    private EventBatchLoader<Event> loader;
+
+    @Data
+    static class Event {
+        private UUID id;
+
+        private String title;
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test
+    void mergesLookupsWithinTheWindow() throws Exception {
+        configure(50, 100);
+
+        CompletableFuture<Event> first = loader.load(FIRST_ID);
+        CompletableFuture<Event> second = loader.load(SECOND_ID);
+        CompletableFuture<Event> firstAgain = loader.load(FIRST_ID);
+        CompletableFuture<Event> missing = loader.load(UUID.randomUUID());
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(FIRST_ID);
+        assertThat(second.get(5, TimeUnit.SECONDS).getId()).isEqualTo(SECOND_ID);
+        assertThat(firstAgain.get(5, TimeUnit.SECONDS).getId()).isEqualTo(FIRST_ID);
+
+        assertThatThrownBy(() -> missing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(WebClientResponseException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void sendsFullBatchesAtOnce() throws Exception {
+        configure(60_000, 2);
+
+        CompletableFuture<Event> first = loader.load(FIRST_ID);
+        CompletableFuture<Event> second = loader.load(SECOND_ID);
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(FIRST_ID);
+        assertThat(second.get(5, TimeUnit.SECONDS).getId()).isEqualTo(SECOND_ID);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void presentsTheServiceToken() throws Exception {
+        configure(0, 100);
+
+        loader.load(FIRST_ID).get(5, TimeUnit.SECONDS);
+
+        assertThat(presentedToken).hasValue(SERVICE_TOKEN);
+        assertThat(ServiceToken.matches(SERVICE_TOKEN, presentedToken.get())).isTrue();
+        assertThat(ServiceToken.matches(SERVICE_TOKEN, "forged")).isFalse();
+        assertThat(ServiceToken.matches("", "")).isFalse();
+        assertThat(ServiceToken.matches(SERVICE_TOKEN, null)).isFalse();
+    }
+
+    private void configure(long windowMillis, int maxBatchSize) {
+        String body = "[{\"id\":\"" + FIRST_ID + "\"},{\"id\":\"" + SECOND_ID + "\"}]";
+
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+            requests.incrementAndGet();
+            presentedToken.set(request.headers().getFirst(ServiceToken.HEADER));
+
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(body)
+                    .build());
+        });
+
+        loader = new EventBatchLoader<>(webClientBuilder, Event.class, Event::getId, SERVICE_TOKEN, windowMillis,
+                maxBatchSize);
+    }
+}
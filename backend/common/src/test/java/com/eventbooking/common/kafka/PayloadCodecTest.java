@@ -0,0 +1,372 @@
+package com.eventbooking.common.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+class PayloadCodecTest {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123_456_000);
+
+    // Golden payloads, one line per field in schema order. Messages already
+    // on the topics were written this way, so any change here is a new
+    // schema, not an edit
+    private static final String BOOKING_FIELDS = ""
+            + "0111111111111111111111111111111111" // id
+            + "104a616e6520446f65" // fullName
+            + "1a6a616e65406d61696c2e636f6d" // email
+            + "0122222222222222222222222222222222" // userID
+            + "0133333333333333333333333333333333" // eventID
+            + "0144444444444444444444444444444444" // groupID
+            + "0104041387" // price
+            + "12434f4e4649524d4544" // status
+            + "01aeefa5ad0d80a8de75"; // createdAt
+
+    private static final String BOOKING = "0001" + BOOKING_FIELDS;
+
+    private static final String BOOKING_LIST = "0002"
+            + "02" // count
+            + BOOKING_FIELDS;
+
+    private static final String GROUP_BOOKING = "0003"
+            + "0144444444444444444444444444444444" // id
+            + "0122222222222222222222222222222222" // userID
+            + "0133333333333333333333333333333333" // eventID
+            + "0104041387" // totalPrice
+            + "02" // count
+            + BOOKING_FIELDS;
+
+    private static final String PAYMENT = "0004"
+            + "0155555555555555555555555555555555" // id
+            + "0104041387" // amount
+            + "0122222222222222222222222222222222" // userID
+            + "0111111111111111111111111111111111" // bookingID
+            + "10415050524f564544" // status
+            + "01aeefa5ad0d80a8de75"; // createdAt
+
+    private static final String EVENT = "0005"
+            + "0133333333333333333333333333333333" // id
+            + "0e436f6e63657274" // title
+            + "2e4f70656e206169722c20c3bcc3b1c3adc3a7c3b864c3a9" // description
+            + "0166666666666666666666666666666666" // categoryID
+            + "0a4d75736963" // categoryName
+            + "0104041387" // price
+            + "1e3120527565206465205269766f6c69" // street
+            + "0a5061726973" // city
+            + "01" // state
+            + "0a3735303031" // zipCode
+            + "0c4672616e6365" // country
+            + "0180d1b5b30d00" // startDateTime
+            + "01e807" // capacity
+            + "0c414354495645" // status
+            + "0177777777777777777777777777777777" // organizerID
+            + "01aeefa5ad0d80a8de75" // createdAt
+            + "00"; // updatedAt
+
+    private static final String REVIEW = "0006"
+            + "0188888888888888888888888888888888" // id
+            + "0108" // rating
+            + "1447726561742073686f77" // title
+            + "104c6f766564206974" // description
+            + "0122222222222222222222222222222222" // userID
+            + "086a616e65" // username
+            + "0133333333333333333333333333333333" // eventID
+            + "01aeefa5ad0d80a8de75"; // createdAt
+
+    private static final PayloadCodec CODEC = PayloadCodec.forTypeMapping(
+            "booking:" + Booking.class.getName() + ", group_booking:" + GroupBooking.class.getName()
+                    + ", payment:" + Payment.class.getName() + ", event:" + Event.class.getName()
+                    + ", review:" + Review.class.getName());
+
+    @Test
+    void writesEverySchemaAsDocumented() {
+        assertThat(CODEC.encode(booking())).isEqualTo(bytes(BOOKING));
+        assertThat(CODEC.encode(List.of(booking()))).isEqualTo(bytes(BOOKING_LIST));
+        assertThat(CODEC.encode(groupBooking())).isEqualTo(bytes(GROUP_BOOKING));
+        assertThat(CODEC.encode(payment())).isEqualTo(bytes(PAYMENT));
+        assertThat(CODEC.encode(event())).isEqualTo(bytes(EVENT));
+        assertThat(CODEC.encode(review())).isEqualTo(bytes(REVIEW));
+    }
+
+    @Test
+    void readsEverySchemaAsDocumented() {
+        assertThat(CODEC.decode(bytes(BOOKING))).isEqualTo(booking());
+        assertThat(CODEC.decode(bytes(BOOKING_LIST))).isEqualTo(List.of(booking()));
+        assertThat(CODEC.decode(bytes(GROUP_BOOKING))).isEqualTo(groupBooking());
+        assertThat(CODEC.decode(bytes(PAYMENT))).isEqualTo(payment());
+        assertThat(CODEC.decode(bytes(EVENT))).isEqualTo(event());
+        assertThat(CODEC.decode(bytes(REVIEW))).isEqualTo(review());
+    }
+
+    @Test
+    void readsIntoTheConsumersOwnClasses() {
+        PayloadCodec consumer = new PayloadCodec(Map.of(PayloadSchema.BOOKING, BookingView.class));
+
+        assertThat(consumer.decode(bytes(BOOKING))).isEqualTo(BookingView.builder()
+                .id(UUID.fromString("11111111-1111-1111-1111-111111111111"))
+                .fullName("Jane Doe")
+                .email("jane@mail.com")
+                .userID(UUID.fromString("22222222-2222-2222-2222-222222222222"))
+                .eventID(UUID.fromString("33333333-3333-3333-3333-333333333333"))
+                .groupID(UUID.fromString("44444444-4444-4444-4444-444444444444"))
+                .price(new BigDecimal("49.99"))
+                .status("CONFIRMED")
+                .createdAt(CREATED_AT)
+                .build());
+    }
+
+    @Test
+    void roundTripsEmptyAndExtremeValues() {
+        Booking empty = new Booking();
+        GroupBooking groupBooking = GroupBooking.builder()
+                .id(UUID.randomUUID())
+                .totalPrice(new BigDecimal("-1234567890123456789.05"))
+                .bookings(List.of(booking(), empty))
+                .build();
+        Review review = Review.builder().rating(Integer.MIN_VALUE).createdAt(LocalDateTime.of(1969, 12, 31, 23,
+                59, 59, 999_999_000)).build();
+
+        assertThat(CODEC.decode(CODEC.encode(empty))).isEqualTo(empty);
+        assertThat(CODEC.decode(CODEC.encode(List.of()))).isEqualTo(List.of());
+        assertThat(CODEC.decode(CODEC.encode(groupBooking))).isEqualTo(groupBooking);
+        assertThat(CODEC.decode(CODEC.encode(review))).isEqualTo(review);
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownPayloads() {
+        byte[] encoded = CODEC.encode(booking());
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 3);
+        PayloadCodec paymentsOnly = new PayloadCodec(Map.of(PayloadSchema.PAYMENT, Payment.class));
+
+        assertThatThrownBy(() -> CODEC.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CODEC.decode(new byte[] { PayloadCodec.MAGIC, 99 }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paymentsOnly.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CODEC.encode("text")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsClassesMissingFieldsOfTheirSchema() {
+        assertThatThrownBy(() -> new PayloadCodec(Map.of(PayloadSchema.EVENT, Booking.class)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no property title");
+        assertThatThrownBy(() -> new PayloadCodec(Map.of(PayloadSchema.PAYMENT, MistypedPayment.class)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("amount");
+        assertThatThrownBy(() -> new PayloadCodec(Map.of(PayloadSchema.GROUP_BOOKING, GroupBooking.class)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PayloadCodec.forTypeMapping("booking:com.example.Missing"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void isSmallerThanJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+        assertThat(CODEC.encode(booking()).length)
+                .isLessThan(objectMapper.writeValueAsBytes(booking()).length / 2);
+    }
+
+    private static byte[] bytes(String hex) {
+        return HexFormat.of().parseHex(hex);
+    }
+
+    private static Booking booking() {
+        return Booking.builder()
+                .id(UUID.fromString("11111111-1111-1111-1111-111111111111"))
+                .fullName("Jane Doe")
+                .email("jane@mail.com")
+                .userID(UUID.fromString("22222222-2222-2222-2222-222222222222"))
+                .eventID(UUID.fromString("33333333-3333-3333-3333-333333333333"))
+                .groupID(UUID.fromString("44444444-4444-4444-4444-444444444444"))
+                .price(new BigDecimal("49.99"))
+                .status(Status.CONFIRMED)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static GroupBooking groupBooking() {
+        return GroupBooking.builder()
+                .id(UUID.fromString("44444444-4444-4444-4444-444444444444"))
+                .userID(UUID.fromString("22222222-2222-2222-2222-222222222222"))
+                .eventID(UUID.fromString("33333333-3333-3333-3333-333333333333"))
+                .totalPrice(new BigDecimal("49.99"))
+                .bookings(List.of(booking()))
+                .build();
+    }
+
+    private static Payment payment() {
+        return Payment.builder()
+                .id(UUID.fromString("55555555-5555-5555-5555-555555555555"))
+                .amount(new BigDecimal("49.99"))
+                .userID(UUID.fromString("22222222-2222-2222-2222-222222222222"))
+                .bookingID(UUID.fromString("11111111-1111-1111-1111-111111111111"))
+                .status(Status.APPROVED)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static Event event() {
+        return Event.builder()
+                .id(UUID.fromString("33333333-3333-3333-3333-333333333333"))
+                .title("Concert")
+                .description("Open air, üñíçødé")
+                .categoryID(UUID.fromString("66666666-6666-6666-6666-666666666666"))
+                .categoryName("Music")
+                .price(new BigDecimal("49.99"))
+                .street("1 Rue de Rivoli")
+                .city("Paris")
+                .zipCode("75001")
+                .country("France")
+                .startDateTime(LocalDateTime.of(2026, 12, 31, 20, 0))
+                .capacity(500)
+                .status(Status.ACTIVE)
+                .organizerID(UUID.fromString("77777777-7777-7777-7777-777777777777"))
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static Review review() {
+        return Review.builder()
+                .id(UUID.fromString("88888888-8888-8888-8888-888888888888"))
+                .rating(4)
+                .title("Great show")
+                .description("Loved it")
+                .userID(UUID.fromString("22222222-2222-2222-2222-222222222222"))
+                .username("jane")
+                .eventID(UUID.fromString("33333333-3333-3333-3333-333333333333"))
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    public enum Status {
+        CONFIRMED, APPROVED, ACTIVE
+    }
+
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Booking {
+        private UUID id;
+        private String fullName;
+        private String email;
+        private UUID userID;
+        private UUID eventID;
+        private UUID groupID;
+        private BigDecimal price;
+        private Status status;
+        private LocalDateTime createdAt;
+    }
+
+    // The same schema as a consumer that keeps the status as text
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BookingView {
+        private UUID id;
+        private String fullName;
+        private String email;
+        private UUID userID;
+        private UUID eventID;
+        private UUID groupID;
+        private BigDecimal price;
+        private String status;
+        private LocalDateTime createdAt;
+    }
+
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class GroupBooking {
+        private UUID id;
+        private UUID userID;
+        private UUID eventID;
+        private BigDecimal totalPrice;
+        private List<Booking> bookings;
+    }
+
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Payment {
+        private UUID id;
+        private BigDecimal amount;
+        private UUID userID;
+        private UUID bookingID;
+        private Status status;
+        private LocalDateTime createdAt;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class MistypedPayment {
+        private UUID id;
+        private Double amount;
+        private UUID userID;
+        private UUID bookingID;
+        private String status;
+        private LocalDateTime createdAt;
+    }
+
+    // Properties outside the schema, like the location, are not sent
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Event {
+        private UUID id;
+        private String title;
+        private String description;
+        private UUID categoryID;
+        private String categoryName;
+        private BigDecimal price;
+        private String street;
+        private String city;
+        private String state;
+        private String zipCode;
+        private String country;
+        private Double latitude;
+        private Double longitude;
+        private LocalDateTime startDateTime;
+        private Integer capacity;
+        private Status status;
+        private UUID organizerID;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+    }
+
+    @Builder
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Review {
+        private UUID id;
+        private int rating;
+        private String title;
+        private String description;
+        private UUID userID;
+        private String username;
+        private UUID eventID;
+        private LocalDateTime createdAt;
+    }
+}
@@ -1,20 +1,35 @@
 package com.eventbooking.eventservice.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 public class KafkaTopicConfiguration {
+    // Event messages are keyed by event ID, the changes of one event stay in order
+    @Value("${event.kafka.partitions:6}")
+    private int partitions;
+
+    @Bean
+    public NewTopic EventChangedTopicCreation() {
+        return TopicBuilder.name("EventChanged").compact().partitions(partitions).build();
+    }
+
+    // Keyed by category ID, every instance reloads its category names on it
+    @Bean
+    public NewTopic CategoryChangedTopicCreation() {
+        return TopicBuilder.name("CategoryChanged").partitions(1).build();
+    }
 
     @Bean
     public NewTopic EventUpdatedTopicCreation() {
-        return TopicBuilder.name("EventUpdated").build();
+        return TopicBuilder.name("EventUpdated").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic EventCancelledTopicCreation() {
-        return TopicBuilder.name("EventCancelled").build();
+        return TopicBuilder.name("EventCancelled").partitions(partitions).build();
     }
 }
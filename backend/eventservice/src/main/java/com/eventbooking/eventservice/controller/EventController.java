@@ -1,12 +1,22 @@
 package com.eventbooking.eventservice.controller;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -17,7 +27,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.eventbooking.common.event.ServiceToken;
 import com.eventbooking.eventservice.dto.EventDTO;
+import com.eventbooking.eventservice.dto.EventPageDTO;
+import com.eventbooking.eventservice.model.EventStatus;
+import com.eventbooking.eventservice.repository.EventFilter;
 import com.eventbooking.eventservice.service.EventService;
 import com.eventbooking.eventservice.service.ValidationService;
 import com.eventbooking.eventservice.util.JwtUtil;
@@ -37,24 +51,123 @@ public class EventController {
     @Autowired
     private ValidationService validationService;
 
+    @Value("${event.pagination.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${event.pagination.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${event.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${event.batch.service-token:}")
+    private String batchServiceToken;
+
+    @Value("${event.http.max-age-seconds:10}")
+    private long cacheMaxAgeSeconds;
+
     @GetMapping("/events")
     public ResponseEntity<?> getEvents(
             @RequestParam(required = false) UUID organizerID,
             @RequestParam(required = false) UUID categoryID,
-            @RequestParam(required = false) String search) {
-        List<EventDTO> events = eventService.getEvents(organizerID, categoryID, search);
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) EventStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) String bbox,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit != null && (limit < 1 || limit > maxPageLimit))
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Limit must be between 1 and " + maxPageLimit);
+
+        // Every response is a bounded page, further events are fetched with
+        // the cursor of the X-Next-Cursor header
+        if (limit == null)
+            limit = defaultPageLimit;
+
+        EventFilter filter = EventFilter.builder()
+                .organizerID(organizerID)
+                .categoryID(categoryID)
+                .status(status)
+                .startsFrom(from)
+                .startsTo(to)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .city(city)
+                .build();
+
+        EventPageDTO events = null;
 
-        return ResponseEntity.status(HttpStatus.OK).body(events);
+        try {
+            if (latitude == null && longitude == null && radiusKm == null && bbox == null)
+                events = eventService.getEvents(filter, search, cursor, limit);
+            else if (search == null || search.isBlank())
+                events = eventService.getNearbyEvents(filter, latitude, longitude, radiusKm, bbox, limit);
+            else
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("A text search cannot be combined with a location search");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+
+        // Returns the page as a plain list so existing clients keep working,
+        // the paging details are sent in headers
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(cacheControl())
+                .eTag(eTag(events.getEvents(), events.getNextCursor()));
+
+        if (events.getNextCursor() != null)
+            response.header("X-Next-Cursor", events.getNextCursor());
+
+        if (events.getTotalEstimate() != null)
+            response.header("X-Total-Count-Estimate", events.getTotalEstimate().toString());
+
+        return response.body(events.getEvents());
     }
 
     @GetMapping("/events/{eventID}")
     public ResponseEntity<?> getEvent(@PathVariable UUID eventID) {
-        if (!validationService.isEventPresent(eventID))
+        EventDTO event = eventService.getEvent(eventID).orElse(null);
+
+        if (event == null)
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Event not found");
 
-        Optional<EventDTO> event = eventService.getEvent(eventID);
+        LocalDateTime lastModified = event.getUpdatedAt() != null ? event.getUpdatedAt() : event.getCreatedAt();
 
-        return ResponseEntity.status(HttpStatus.OK).body(event);
+        // A request whose If-None-Match or If-Modified-Since matches is
+        // answered with 304 and no body
+        return ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(cacheControl())
+                .eTag(eTag(List.of(event), null))
+                .lastModified(lastModified.atZone(ZoneId.systemDefault()))
+                .body(event);
+    }
+
+    /**
+     * Looks up at most max-size events in one request. Only answers the other
+     * services, which coalesce their single-event lookups into it and present
+     * the shared service token.
+     */
+    @PostMapping("/events/batch")
+    public ResponseEntity<?> getEventsByID(
+            @RequestHeader(value = ServiceToken.HEADER, required = false) String serviceToken,
+            @RequestBody Set<UUID> eventIDs) {
+        if (!ServiceToken.matches(batchServiceToken, serviceToken))
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only other services can look up events in batches");
+
+        if (eventIDs.size() > maxBatchSize)
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("At most " + maxBatchSize + " events can be looked up at once");
+
+        List<EventDTO> events = eventService.getEvents(eventIDs);
+
+        return ResponseEntity.status(HttpStatus.OK).body(events);
     }
 
     @PostMapping("/events")
@@ -106,7 +219,11 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
 
-        event = eventService.updateEvent(eventID, eventDTO);
+        try {
+            event = eventService.updateEvent(eventID, eventDTO);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The event was changed concurrently, try again");
+        }
 
         return ResponseEntity.status(HttpStatus.OK).body(event);
     }
@@ -134,8 +251,34 @@ public class EventController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
 
-        eventService.cancelEvent(eventID);
+        try {
+            eventService.cancelEvent(eventID);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The event was changed concurrently, try again");
+        }
 
         return ResponseEntity.status(HttpStatus.OK).body("Event cancelled successfully");
     }
+
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    /**
+     * Strong ETag of a response listing the given events. It covers the
+     * version of every event and its category name, which can change without
+     * changing the event, and the cursor of the next page if there is one.
+     */
+    private static String eTag(List<EventDTO> events, String nextCursor) {
+        StringBuilder state = new StringBuilder();
+
+        for (EventDTO event : events)
+            state.append(event.getId()).append(':').append(event.getVersion()).append(':')
+                    .append(event.getCategoryName()).append('\n');
+
+        if (nextCursor != null)
+            state.append(nextCursor);
+
+        return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
 }
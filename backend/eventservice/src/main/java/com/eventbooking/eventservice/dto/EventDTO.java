@@ -36,6 +36,12 @@ public class EventDTO {
     private String zipCode;
     private String country;
 
+    private Double latitude;
+    private Double longitude;
+
+    // Only set in results of a search around a location
+    private Double distanceKm;
+
     private LocalDateTime startDateTime;
 
     private Integer capacity;
@@ -46,4 +52,8 @@ public class EventDTO {
     private UUID organizerID;
 
     private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private Long version;
 }
\ No newline at end of file
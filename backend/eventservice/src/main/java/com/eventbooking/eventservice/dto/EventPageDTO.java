@@ -0,0 +1,22 @@
+package com.eventbooking.eventservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventPageDTO {
+    private List<EventDTO> events;
+
+    // Opaque cursor of the next page, null on the last page
+    private String nextCursor;
+
+    // Estimated number of matching events, only set on the first page
+    private Long totalEstimate;
+}
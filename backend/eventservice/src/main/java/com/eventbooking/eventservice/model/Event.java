@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -14,6 +15,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -44,6 +46,10 @@ public class Event {
     private String zipCode;
     private String country;
 
+    // WGS 84 coordinates in degrees, both null if the event has no location
+    private Double latitude;
+    private Double longitude;
+
     private LocalDateTime startDateTime;
 
     private Integer capacity;
@@ -56,4 +62,12 @@ public class Event {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Incremented on every update, identifies the state of the event in ETags
+    @Version
+    private Long version;
 }
\ No newline at end of file
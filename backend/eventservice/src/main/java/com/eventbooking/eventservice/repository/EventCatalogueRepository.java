@@ -0,0 +1,129 @@
+package com.eventbooking.eventservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.eventbooking.eventservice.model.Event;
+
+/**
+ * Pages through the event catalogue by start date descending, or lists the
+ * events around a location by distance. Pages are keyset paginated on
+ * (start_date_time, event_id), so a page costs the same however deep it is,
+ * and every filter is an indexable condition (see
+ * V4__event_catalogue_indexes.sql).
+ */
+@Repository
+public class EventCatalogueRepository {
+    // Great-circle distance in km from the point given by the parameters
+    // latitude, latitude and longitude (haversine formula)
+    private static final String DISTANCE_KM = "2 * " + GeoBox.EARTH_RADIUS_KM + " * asin(sqrt(least(1, " +
+            "power(sin(radians(latitude - ?) / 2), 2) + " +
+            "cos(radians(?)) * cos(radians(latitude)) * power(sin(radians(longitude - ?) / 2), 2))))";
+
+    // Estimated rows of the top plan node in EXPLAIN (FORMAT JSON) output
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventCatalogueRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fetches the events matching the filter that come after the given
+     * position, latest start date first.
+     *
+     * @param filter     the conditions the events must meet
+     * @param afterStart the start date of the last event of the previous page
+     *                   (null for the first page)
+     * @param afterID    the ID of the last event of the previous page (null
+     *                   for the first page)
+     * @param limit      the largest number of events to return
+     */
+    public List<Event> getPage(EventFilter filter, LocalDateTime afterStart, UUID afterID, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + EventRowMapper.COLUMNS + " FROM event WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+
+        filter.appendConditions(sql, parameters);
+
+        if (afterStart != null && afterID != null) {
+            sql.append(" AND (start_date_time, event_id) < (?, ?)");
+            parameters.add(afterStart);
+            parameters.add(afterID);
+        }
+
+        sql.append(" ORDER BY start_date_time DESC, event_id DESC LIMIT ?");
+        parameters.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), new EventRowMapper(), parameters.toArray());
+    }
+
+    /**
+     * Finds the located events matching the filter inside the box, nearest to
+     * the given point first. The box is looked up in the GiST index of event
+     * locations (see V7__event_location_index.sql); distances are only
+     * computed for the events inside it.
+     *
+     * @param radiusKm the largest distance from the point (null for the whole
+     *                 box)
+     * @param limit    the largest number of events to return
+     */
+    public List<NearbyEvent> getNearby(EventFilter filter, double latitude, double longitude, GeoBox box,
+            Double radiusKm, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM (SELECT " + EventRowMapper.COLUMNS + ", " +
+                DISTANCE_KM + " AS distance_km FROM event WHERE latitude IS NOT NULL AND longitude IS NOT NULL " +
+                "AND point(longitude, latitude) <@ box(point(?, ?), point(?, ?))");
+        List<Object> parameters = new ArrayList<>();
+
+        parameters.add(latitude);
+        parameters.add(latitude);
+        parameters.add(longitude);
+        parameters.add(box.getMinLongitude());
+        parameters.add(box.getMinLatitude());
+        parameters.add(box.getMaxLongitude());
+        parameters.add(box.getMaxLatitude());
+
+        filter.appendConditions(sql, parameters);
+
+        sql.append(") nearby");
+
+        if (radiusKm != null) {
+            sql.append(" WHERE distance_km <= ?");
+            parameters.add(radiusKm);
+        }
+
+        sql.append(" ORDER BY distance_km, event_id LIMIT ?");
+        parameters.add(limit);
+
+        EventRowMapper eventRowMapper = new EventRowMapper();
+
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new NearbyEvent(eventRowMapper.mapRow(rs, rowNum), rs.getDouble("distance_km")),
+                parameters.toArray());
+    }
+
+    /**
+     * Estimates the number of events matching the filter from the planner's
+     * statistics instead of counting them, so it costs a query plan rather
+     * than a scan. The estimate is only as good as the last ANALYZE of the
+     * event table.
+     */
+    public long estimateCount(EventFilter filter) {
+        StringBuilder sql = new StringBuilder("EXPLAIN (FORMAT JSON) SELECT 1 FROM event WHERE TRUE");
+        List<Object> parameters = new ArrayList<>();
+
+        filter.appendConditions(sql, parameters);
+
+        String plan = jdbcTemplate.queryForObject(sql.toString(), String.class, parameters.toArray());
+        Matcher matcher = PLAN_ROWS.matcher(plan == null ? "" : plan);
+
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
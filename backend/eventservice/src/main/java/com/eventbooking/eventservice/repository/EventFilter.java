@@ -0,0 +1,82 @@
+package com.eventbooking.eventservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.eventbooking.eventservice.model.EventStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conditions of an event listing. Every field is optional; only the fields
+ * that are set become part of the SQL.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventFilter {
+    private UUID organizerID;
+    private UUID categoryID;
+    private EventStatus status;
+
+    // Start date range, from inclusive and to exclusive
+    private LocalDateTime startsFrom;
+    private LocalDateTime startsTo;
+
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    // Matched case-insensitively
+    private String city;
+
+    /**
+     * Appends " AND ..." for every condition that is set.
+     */
+    void appendConditions(StringBuilder sql, List<Object> parameters) {
+        if (organizerID != null) {
+            sql.append(" AND organizerid = ?");
+            parameters.add(organizerID);
+        }
+
+        if (categoryID != null) {
+            sql.append(" AND categoryid = ?");
+            parameters.add(categoryID);
+        }
+
+        if (status != null) {
+            sql.append(" AND status = ?");
+            parameters.add(status.name());
+        }
+
+        if (startsFrom != null) {
+            sql.append(" AND start_date_time >= ?");
+            parameters.add(startsFrom);
+        }
+
+        if (startsTo != null) {
+            sql.append(" AND start_date_time < ?");
+            parameters.add(startsTo);
+        }
+
+        if (minPrice != null) {
+            sql.append(" AND price >= ?");
+            parameters.add(minPrice);
+        }
+
+        if (maxPrice != null) {
+            sql.append(" AND price <= ?");
+            parameters.add(maxPrice);
+        }
+
+        if (city != null && !city.isBlank()) {
+            sql.append(" AND lower(city) = lower(?)");
+            parameters.add(city.trim());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.eventbooking.eventservice.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import com.eventbooking.eventservice.model.Event;
+import com.eventbooking.eventservice.model.EventStatus;
+
+/**
+ * Maps raw event rows to entities for the JDBC queries that bypass JPA.
+ * Expects the columns listed in {@link #COLUMNS}.
+ */
+public class EventRowMapper implements RowMapper<Event> {
+    public static final String COLUMNS = "event_id, title, description, categoryid, price, street, city, state, " +
+            "zip_code, country, latitude, longitude, start_date_time, capacity, organizerid, status, created_at, updated_at, version";
+
+    @Override
+    public Event mapRow(ResultSet rs, int rowNum) throws SQLException {
+        String status = rs.getString("status");
+
+        return Event.builder()
+                .id(rs.getObject("event_id", UUID.class))
+                .title(rs.getString("title"))
+                .description(rs.getString("description"))
+                .categoryID(rs.getObject("categoryid", UUID.class))
+                .price(rs.getBigDecimal("price"))
+                .street(rs.getString("street"))
+                .city(rs.getString("city"))
+                .state(rs.getString("state"))
+                .zipCode(rs.getString("zip_code"))
+                .country(rs.getString("country"))
+                .latitude(rs.getObject("latitude", Double.class))
+                .longitude(rs.getObject("longitude", Double.class))
+                .startDateTime(toLocalDateTime(rs.getTimestamp("start_date_time")))
+                .capacity(rs.getObject("capacity", Integer.class))
+                .organizerID(rs.getObject("organizerid", UUID.class))
+                .status(status == null ? null : EventStatus.valueOf(status))
+                .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+                .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                .version(rs.getLong("version"))
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,77 @@
+package com.eventbooking.eventservice.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.eventbooking.eventservice.model.Event;
+
+/**
+ * Full-text search over the GIN-indexed search_vector of events (see
+ * V2__event_search.sql). Only the filters that are given become part of the
+ * SQL, so the planner sees plain conditions next to the text match.
+ */
+@Repository
+public class EventSearchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventSearchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Finds the events matching every word of the search string, each word as
+     * a prefix. Title matches rank above category and city matches, which rank
+     * above description matches; equal ranks are ordered by start date
+     * descending.
+     *
+     * @param search the words to search for
+     * @param filter the conditions the events must also meet
+     * @param limit  the largest number of events to return
+     * @return the best ranked matching events, empty if the search string has
+     *         no words
+     */
+    public List<Event> search(String search, EventFilter filter, int limit) {
+        String query = toPrefixQuery(search);
+
+        if (query == null)
+            return List.of();
+
+        StringBuilder sql = new StringBuilder("SELECT " + EventRowMapper.COLUMNS + " FROM event, " +
+                "to_tsquery('simple', ?) search_query WHERE search_vector @@ search_query");
+        List<Object> parameters = new ArrayList<>();
+
+        parameters.add(query);
+
+        filter.appendConditions(sql, parameters);
+
+        sql.append(" ORDER BY ts_rank(search_vector, search_query) DESC, start_date_time DESC, event_id LIMIT ?");
+        parameters.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), new EventRowMapper(), parameters.toArray());
+    }
+
+    /**
+     * Turns free text into a tsquery that requires every word as a prefix,
+     * e.g. "Jazz  new-yo" becomes "jazz:* & new:* & yo:*". Anything but letters
+     * and digits separates words, so the result is always valid tsquery syntax.
+     *
+     * @return the query, or null if the text has no words
+     */
+    static String toPrefixQuery(String search) {
+        if (search == null)
+            return null;
+
+        String query = Arrays.stream(search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+
+        return query.isEmpty() ? null : query;
+    }
+}
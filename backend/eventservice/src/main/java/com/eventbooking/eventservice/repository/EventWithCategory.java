@@ -0,0 +1,12 @@
+package com.eventbooking.eventservice.repository;
+
+import com.eventbooking.eventservice.model.Event;
+
+/**
+ * An event read together with the current name of its category.
+ */
+public interface EventWithCategory {
+    Event getEvent();
+
+    String getCategoryName();
+}
@@ -0,0 +1,80 @@
+package com.eventbooking.eventservice.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A latitude/longitude box in degrees that does not cross the antimeridian.
+ */
+@Data
+@AllArgsConstructor
+public class GeoBox {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private double minLatitude;
+    private double minLongitude;
+    private double maxLatitude;
+    private double maxLongitude;
+
+    /**
+     * The smallest box holding every point within the radius of the center. A
+     * circle reaching over a pole or the antimeridian gets the full longitude
+     * range, which is larger than needed but never misses a point.
+     */
+    public static GeoBox around(double latitude, double longitude, double radiusKm) {
+        double angularRadius = radiusKm / EARTH_RADIUS_KM;
+        double minLatitude = latitude - Math.toDegrees(angularRadius);
+        double maxLatitude = latitude + Math.toDegrees(angularRadius);
+
+        if (minLatitude <= -90 || maxLatitude >= 90)
+            return new GeoBox(Math.max(minLatitude, -90), -180, Math.min(maxLatitude, 90), 180);
+
+        double longitudeDelta = Math.toDegrees(
+                Math.asin(Math.min(1, Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude)))));
+        double minLongitude = longitude - longitudeDelta;
+        double maxLongitude = longitude + longitudeDelta;
+
+        if (minLongitude < -180 || maxLongitude > 180)
+            return new GeoBox(minLatitude, -180, maxLatitude, 180);
+
+        return new GeoBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+    }
+
+    /**
+     * Parses a box given as "minLongitude,minLatitude,maxLongitude,maxLatitude".
+     *
+     * @throws IllegalArgumentException if the box is malformed, out of range
+     *                                  or crosses the antimeridian
+     */
+    public static GeoBox parse(String box) {
+        String[] corners = box.split(",");
+
+        if (corners.length != 4)
+            throw new IllegalArgumentException("Box must be minLongitude,minLatitude,maxLongitude,maxLatitude");
+
+        GeoBox geoBox;
+
+        try {
+            geoBox = new GeoBox(Double.parseDouble(corners[1].trim()), Double.parseDouble(corners[0].trim()),
+                    Double.parseDouble(corners[3].trim()), Double.parseDouble(corners[2].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Box corners must be numbers");
+        }
+
+        if (geoBox.minLatitude < -90 || geoBox.maxLatitude > 90 || geoBox.minLatitude > geoBox.maxLatitude)
+            throw new IllegalArgumentException("Box latitudes must be ascending and between -90 and 90");
+
+        if (geoBox.minLongitude < -180 || geoBox.maxLongitude > 180 || geoBox.minLongitude > geoBox.maxLongitude)
+            throw new IllegalArgumentException("Box longitudes must be ascending and between -180 and 180");
+
+        return geoBox;
+    }
+
+    public double getCenterLatitude() {
+        return (minLatitude + maxLatitude) / 2;
+    }
+
+    public double getCenterLongitude() {
+        return (minLongitude + maxLongitude) / 2;
+    }
+}
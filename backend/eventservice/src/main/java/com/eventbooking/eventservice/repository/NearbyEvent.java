@@ -0,0 +1,16 @@
+package com.eventbooking.eventservice.repository;
+
+import com.eventbooking.eventservice.model.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * An event found around a location, with its great-circle distance from it.
+ */
+@Data
+@AllArgsConstructor
+public class NearbyEvent {
+    private Event event;
+    private double distanceKm;
+}
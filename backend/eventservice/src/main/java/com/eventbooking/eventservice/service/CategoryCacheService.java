@@ -0,0 +1,100 @@
+package com.eventbooking.eventservice.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.eventbooking.eventservice.model.Category;
+import com.eventbooking.eventservice.repository.CategoryRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory dictionary of category names, so that mapping a list of events
+ * costs no category queries. Categories are few and rarely change: the whole
+ * table is loaded at startup and reloaded on every instance when a change is
+ * published to CategoryChanged, keyed by category ID. It is also reloaded
+ * periodically, in case a change message is lost.
+ */
+@Slf4j
+@Service
+public class CategoryCacheService {
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EventCacheService eventCacheService;
+
+    // Replaced as a whole, readers never see a half-loaded map. A null value
+    // marks an ID that has no category.
+    private volatile Map<UUID, String> names = new HashMap<>();
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${event.category-cache.refresh-interval-ms:60000}",
+            fixedDelayString = "${event.category-cache.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        Map<UUID, String> loaded = new HashMap<>();
+
+        for (Category category : categoryRepository.findAll())
+            loaded.put(category.getId(), category.getName());
+
+        names = loaded;
+
+        log.debug("Loaded {} category name(s)", loaded.size());
+    }
+
+    /**
+     * Reloads the names and evicts the cached events, which carry the old
+     * category name. Every instance listens with its own consumer group,
+     * named after its stable instance ID.
+     */
+    @KafkaListener(topics = "CategoryChanged",
+            groupId = "EventServiceCategoryCache-${event.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void onCategoryChanged(ConsumerRecord<String, byte[]> record) {
+        refresh();
+        eventCacheService.evictAll();
+
+        log.debug("Category {} changed, category names reloaded", record.key());
+    }
+
+    /**
+     * @return the name of the category, or null if it does not exist
+     */
+    public String getName(UUID categoryID) {
+        if (categoryID == null)
+            return null;
+
+        Map<UUID, String> current = names;
+
+        if (current.containsKey(categoryID))
+            return current.get(categoryID);
+
+        return loadName(categoryID);
+    }
+
+    // A category added through another instance since the last refresh, or
+    // one that was deleted; either way the answer is kept until the next refresh
+    private synchronized String loadName(UUID categoryID) {
+        if (names.containsKey(categoryID))
+            return names.get(categoryID);
+
+        String name = categoryRepository.findById(categoryID)
+                .map(Category::getName)
+                .orElse(null);
+
+        Map<UUID, String> updated = new HashMap<>(names);
+
+        updated.put(categoryID, name);
+        names = updated;
+
+        return name;
+    }
+}
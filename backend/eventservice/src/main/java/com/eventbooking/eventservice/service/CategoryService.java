@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import com.eventbooking.eventservice.dto.CategoryDTO;
@@ -18,6 +19,15 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryCacheService categoryCacheService;
+
+    @Autowired
+    private EventCacheService eventCacheService;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
     public List<CategoryDTO> getCategories() {
         log.info("Fetching all categories");
 
@@ -33,6 +43,8 @@ public class CategoryService {
                 .build();
 
         categoryRepository.save(category);
+        categoryCacheService.refresh();
+        publishCategoryChanged(category.getId());
 
         log.info("Category {} is added to the Database", category.getId());
 
@@ -46,6 +58,11 @@ public class CategoryService {
             category.setName(categoryDTO.getName());
 
         categoryRepository.save(category);
+        categoryCacheService.refresh();
+
+        // Cached events carry the old category name
+        eventCacheService.evictAll();
+        publishCategoryChanged(categoryID);
 
         CategoryDTO updatedCategory = mapToCategoryDTO(category);
 
@@ -57,10 +74,21 @@ public class CategoryService {
     public void deleteCategory(UUID categoryID) {
         Category category = categoryRepository.findById(categoryID).get();
         categoryRepository.delete(category);
+        categoryCacheService.refresh();
+        eventCacheService.evictAll();
+        publishCategoryChanged(categoryID);
 
         log.info("Category {} is deleted", category.getId());
     }
 
+    /**
+     * The other instances reload their category names and evict their cached
+     * events on it. Only the key is published, consumers never read a payload.
+     */
+    private void publishCategoryChanged(UUID categoryID) {
+        kafkaTemplate.send("CategoryChanged", categoryID.toString(), null);
+    }
+
     private CategoryDTO mapToCategoryDTO(Category event) {
         return CategoryDTO.builder()
                 .id(event.getId())
@@ -0,0 +1,61 @@
+package com.eventbooking.eventservice.service;
+
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the "events" and "eventPages" read caches of every instance in step
+ * with event changes. The instance making a change evicts its own caches
+ * right away; the others evict theirs when the change arrives on
+ * EventChanged, which every change is published to, keyed by event ID.
+ */
+@Slf4j
+@Service
+public class EventCacheService {
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Evicts the event and every cached page, any of which may hold the event
+     * or move because of it.
+     */
+    public void evictEvent(UUID eventID) {
+        cacheManager.getCache("events").evict(eventID);
+        cacheManager.getCache("eventPages").clear();
+    }
+
+    /**
+     * Evicts everything, for changes that touch many events such as a renamed
+     * category.
+     */
+    public void evictAll() {
+        cacheManager.getCache("events").clear();
+        cacheManager.getCache("eventPages").clear();
+    }
+
+    /**
+     * Every instance keeps its own caches, so each one listens with its own
+     * consumer group, named after its stable instance ID. A new instance only
+     * reads changes published after it first started; a restarted one
+     * resumes where it left off. Only the key is used, the payload is never
+     * decoded.
+     */
+    @KafkaListener(topics = "EventChanged",
+            groupId = "EventServiceCache-${event.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void onEventChanged(ConsumerRecord<String, byte[]> record) {
+        if (record.key() == null)
+            return;
+
+        evictEvent(UUID.fromString(record.key()));
+
+        log.debug("Event {} evicted from the read caches", record.key());
+    }
+}
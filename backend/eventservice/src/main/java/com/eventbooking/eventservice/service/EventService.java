@@ -1,18 +1,29 @@
 package com.eventbooking.eventservice.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import com.eventbooking.eventservice.dto.EventDTO;
+import com.eventbooking.eventservice.dto.EventPageDTO;
 import com.eventbooking.eventservice.model.Event;
 import com.eventbooking.eventservice.model.EventStatus;
-import com.eventbooking.eventservice.repository.CategoryRepository;
+import com.eventbooking.eventservice.repository.EventCatalogueRepository;
+import com.eventbooking.eventservice.repository.EventFilter;
 import com.eventbooking.eventservice.repository.EventRepository;
+import com.eventbooking.eventservice.repository.EventSearchRepository;
+import com.eventbooking.eventservice.repository.EventWithCategory;
+import com.eventbooking.eventservice.repository.GeoBox;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,20 +34,135 @@ public class EventService {
     private EventRepository eventRepository;
 
     @Autowired
-    private CategoryRepository categoryRepository;
+    private CategoryCacheService categoryCacheService;
+
+    @Autowired
+    private EventSearchRepository eventSearchRepository;
+
+    @Autowired
+    private EventCatalogueRepository eventCatalogueRepository;
+
+    @Autowired
+    private EventCacheService eventCacheService;
 
     @Autowired
     private KafkaTemplate<String, EventDTO> kafkaTemplate;
 
-    public List<EventDTO> getEvents(UUID organizerID, UUID categoryID, String search) {
-        log.info("Fetching all events with organizerID: {}, categoryID: {}, search: {}", organizerID, categoryID,
-                search);
-        return eventRepository.getEvents(organizerID, categoryID, search)
+    @Value("${event.search.max-results:200}")
+    private int maxSearchResults;
+
+    @Value("${event.nearby.max-radius-km:500}")
+    private double maxRadiusKm;
+
+    /**
+     * Lists a page of events by start date descending, or the best ranked
+     * matches of the search string if one is given. Search results are a
+     * single page of at most max-results events.
+     *
+     * Pages are cached by their parameters until an event changes (see
+     * {@link EventCacheService}).
+     *
+     * @param cursor the cursor of the page to fetch, null for the first page
+     * @param limit  the largest number of events to return
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Cacheable("eventPages")
+    public EventPageDTO getEvents(EventFilter filter, String search, String cursor, int limit) {
+        log.info("Fetching events with filter: {}, search: {}", filter, search);
+
+        if (search != null && !search.isBlank()) {
+            List<EventDTO> events = eventSearchRepository.search(search, filter, Math.min(limit, maxSearchResults))
+                    .stream()
+                    .map(this::mapToEventDTO)
+                    .toList();
+
+            return new EventPageDTO(events, null, (long) events.size());
+        }
+
+        List<Event> events;
+        Long totalEstimate = null;
+
+        if (cursor == null) {
+            events = eventCatalogueRepository.getPage(filter, null, null, limit);
+
+            // A short first page is the whole result, anything else is estimated
+            totalEstimate = events.size() < limit
+                    ? events.size()
+                    : Math.max(eventCatalogueRepository.estimateCount(filter), events.size());
+        } else {
+            Event after = decodeCursor(cursor);
+            events = eventCatalogueRepository.getPage(filter, after.getStartDateTime(), after.getId(), limit);
+        }
+
+        return EventPageDTO.builder()
+                .events(events.stream().map(this::mapToEventDTO).toList())
+                .nextCursor(events.size() == limit ? encodeCursor(events.get(events.size() - 1)) : null)
+                .totalEstimate(totalEstimate)
+                .build();
+    }
+
+    /**
+     * Lists the located events within the radius of a point or inside a box
+     * ("minLongitude,minLatitude,maxLongitude,maxLatitude"), nearest to the
+     * point first, as a single page. With a box and no point, distances are
+     * measured from the center of the box.
+     *
+     * @throws IllegalArgumentException if the location is incomplete or out
+     *                                  of range
+     */
+    public EventPageDTO getNearbyEvents(EventFilter filter, Double latitude, Double longitude, Double radiusKm,
+            String bbox, int limit) {
+        log.info("Fetching events around {}, {} with filter: {}, radius: {} km, box: {}", latitude, longitude,
+                filter, radiusKm, bbox);
+
+        if ((latitude == null) != (longitude == null))
+            throw new IllegalArgumentException("Latitude and longitude must be given together");
+
+        if (latitude != null && (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180))
+            throw new IllegalArgumentException("Latitude must be between -90 and 90, longitude between -180 and 180");
+
+        if (radiusKm != null && latitude == null)
+            throw new IllegalArgumentException("A radius needs a latitude and longitude");
+
+        if (radiusKm != null && (radiusKm <= 0 || radiusKm > maxRadiusKm))
+            throw new IllegalArgumentException("Radius must be greater than 0 and at most " + maxRadiusKm + " km");
+
+        if (radiusKm == null && bbox == null)
+            throw new IllegalArgumentException("A location search needs a radiusKm or a bbox");
+
+        GeoBox box = bbox != null ? GeoBox.parse(bbox) : GeoBox.around(latitude, longitude, radiusKm);
+
+        if (latitude == null) {
+            latitude = box.getCenterLatitude();
+            longitude = box.getCenterLongitude();
+        }
+
+        List<EventDTO> events = eventCatalogueRepository.getNearby(filter, latitude, longitude, box, radiusKm, limit)
+                .stream()
+                .map(nearby -> {
+                    EventDTO eventDTO = mapToEventDTO(nearby.getEvent());
+                    eventDTO.setDistanceKm(nearby.getDistanceKm());
+                    return eventDTO;
+                })
+                .toList();
+
+        return new EventPageDTO(events, null, (long) events.size());
+    }
+
+    /**
+     * Loads many events at once for internal callers. Events that do not
+     * exist are left out, the order of the IDs is not kept.
+     */
+    public List<EventDTO> getEvents(Collection<UUID> eventIDs) {
+        log.info("Fetching {} events by ID", eventIDs.size());
+
+        return eventRepository.findAllById(eventIDs)
                 .stream()
                 .map(this::mapToEventDTO)
                 .toList();
     }
 
+    @Cacheable(cacheNames = "events", key = "#eventID", unless = "#result == null")
     public Optional<EventDTO> getEvent(UUID eventID) {
         log.info("Fetching event with ID: {}", eventID);
         return eventRepository.findById(eventID)
@@ -54,6 +180,8 @@ public class EventService {
                 .state(eventDTO.getState())
                 .zipCode(eventDTO.getZipCode())
                 .country(eventDTO.getCountry())
+                .latitude(eventDTO.getLatitude())
+                .longitude(eventDTO.getLongitude())
                 .startDateTime(eventDTO.getStartDateTime())
                 .capacity(eventDTO.getCapacity())
                 .organizerID(eventDTO.getOrganizerID())
@@ -63,10 +191,15 @@ public class EventService {
         event.setStatus(EventStatus.ACTIVE);
 
         eventRepository.save(event);
+        eventCacheService.evictEvent(event.getId());
+
+        EventDTO addedEvent = getChangedEvent(event.getId());
+
+        publishEventChanged(addedEvent);
 
         log.info("Event {} is added to the Database", event.getId());
 
-        return mapToEventDTO(event);
+        return addedEvent;
     }
 
     public EventDTO updateEvent(UUID eventID, EventDTO eventDTO) {
@@ -99,17 +232,25 @@ public class EventService {
         if (eventDTO.getCountry() != null)
             event.setCountry(eventDTO.getCountry());
 
+        if (eventDTO.getLatitude() != null && eventDTO.getLongitude() != null) {
+            event.setLatitude(eventDTO.getLatitude());
+            event.setLongitude(eventDTO.getLongitude());
+        }
+
         if (eventDTO.getStartDateTime() != null)
             event.setStartDateTime(eventDTO.getStartDateTime());
 
         if (eventDTO.getCapacity() != null)
             event.setCapacity(eventDTO.getCapacity());
 
-        eventRepository.save(event);
+        // The detached event does not get the update timestamp, the merged copy does
+        event = eventRepository.save(event);
+        eventCacheService.evictEvent(event.getId());
 
-        EventDTO updatedEvent = mapToEventDTO(event);
+        EventDTO updatedEvent = getChangedEvent(event.getId());
 
-        kafkaTemplate.send("EventUpdated", updatedEvent);
+        kafkaTemplate.send("EventUpdated", event.getId().toString(), updatedEvent);
+        publishEventChanged(updatedEvent);
 
         log.info("Event {} is updated", event.getId());
 
@@ -122,35 +263,83 @@ public class EventService {
         // Update the event status to cancelled
         event.setStatus(EventStatus.CANCELLED);
 
-        eventRepository.save(event);
+        event = eventRepository.save(event);
+        eventCacheService.evictEvent(event.getId());
 
-        kafkaTemplate.send("EventCancelled", mapToEventDTO(event));
+        EventDTO cancelledEvent = getChangedEvent(event.getId());
+
+        kafkaTemplate.send("EventCancelled", event.getId().toString(), cancelledEvent);
+        publishEventChanged(cancelledEvent);
 
         log.info("Event {} is cancelled", event.getId());
 
-        return mapToEventDTO(event);
+        return cancelledEvent;
+    }
+
+    /**
+     * Publishes the current state of an event to the compacted EventChanged
+     * topic. Keyed by the event ID, so the latest state of every event is
+     * kept and read models of other services can be rebuilt from the topic.
+     */
+    private void publishEventChanged(EventDTO eventDTO) {
+        kafkaTemplate.send("EventChanged", eventDTO.getId().toString(), eventDTO);
+    }
+
+    private String encodeCursor(Event last) {
+        String position = last.getStartDateTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Event decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+
+            return Event.builder()
+                    .startDateTime(LocalDateTime.parse(position[0]))
+                    .id(UUID.fromString(position[1]))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Reads a changed event for its response and Kafka messages. The category
+     * name is joined in rather than taken from the cache, so that other
+     * services never receive a name renamed through another instance.
+     */
+    private EventDTO getChangedEvent(UUID eventID) {
+        EventWithCategory changed = eventRepository.findWithCategoryName(eventID).orElseThrow();
+
+        return mapToEventDTO(changed.getEvent(), changed.getCategoryName());
     }
 
     private EventDTO mapToEventDTO(Event event) {
+        return mapToEventDTO(event, categoryCacheService.getName(event.getCategoryID()));
+    }
+
+    private EventDTO mapToEventDTO(Event event, String categoryName) {
         return EventDTO.builder()
                 .id(event.getId())
                 .title(event.getTitle())
                 .description(event.getDescription())
                 .categoryID(event.getCategoryID())
-                .categoryName(categoryRepository.findById(event.getCategoryID())
-                        .map(category -> category.getName())
-                        .orElse(null))
+                .categoryName(categoryName)
                 .price(event.getPrice())
                 .street(event.getStreet())
                 .city(event.getCity())
                 .state(event.getState())
                 .zipCode(event.getZipCode())
                 .country(event.getCountry())
+                .latitude(event.getLatitude())
+                .longitude(event.getLongitude())
                 .startDateTime(event.getStartDateTime())
                 .capacity(event.getCapacity())
                 .status(event.getStatus())
                 .organizerID(event.getOrganizerID())
                 .createdAt(event.getCreatedAt())
+                .updatedAt(event.getUpdatedAt())
+                .version(event.getVersion())
                 .build();
     }
 };
@@ -30,10 +30,6 @@ public class ValidationService {
         return event.isPresent() && event.get().getOrganizerID().equals(userID);
     }
 
-    public boolean isEventPresent(UUID eventID) {
-        return eventRepository.existsById(eventID);
-    }
-
     public boolean isEventActive(UUID eventID) {
         return eventRepository.findById(eventID).get().getStatus() == EventStatus.ACTIVE;
     }
@@ -74,6 +70,8 @@ public class ValidationService {
         if (eventDTO.getCountry() == null || eventDTO.getCountry().isEmpty())
             throw new IllegalArgumentException("Event country cannot be null or empty");
 
+        isLocationValid(eventDTO);
+
         if (eventDTO.getCapacity() == null || eventDTO.getCapacity() <= 0)
             throw new IllegalArgumentException("Event capacity must be greater than 0");
 
@@ -120,6 +118,8 @@ public class ValidationService {
         if (eventDTO.getCountry() != null && eventDTO.getCountry().isEmpty())
             throw new IllegalArgumentException("Event country cannot be empty");
 
+        isLocationValid(eventDTO);
+
         if (eventDTO.getCapacity() != null && eventDTO.getCapacity() <= 0)
             throw new IllegalArgumentException("Event capacity must be greater than 0");
 
@@ -146,4 +146,18 @@ public class ValidationService {
 
         return true;
     }
+
+    // The location is optional, but latitude and longitude come together
+    private boolean isLocationValid(EventDTO eventDTO) {
+        if ((eventDTO.getLatitude() == null) != (eventDTO.getLongitude() == null))
+            throw new IllegalArgumentException("Event latitude and longitude must be given together");
+
+        if (eventDTO.getLatitude() != null && (eventDTO.getLatitude() < -90 || eventDTO.getLatitude() > 90))
+            throw new IllegalArgumentException("Event latitude must be between -90 and 90");
+
+        if (eventDTO.getLongitude() != null && (eventDTO.getLongitude() < -180 || eventDTO.getLongitude() > 180))
+            throw new IllegalArgumentException("Event longitude must be between -180 and 180");
+
+        return true;
+    }
 }
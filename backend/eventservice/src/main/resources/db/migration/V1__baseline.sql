@@ -0,0 +1,31 @@
+-- Schema as previously created by Hibernate (ddl-auto=update). Databases that
+-- already have these tables are baselined at this version and skip it.
+
+CREATE TABLE IF NOT EXISTS category (
+    category_id UUID NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT category_pkey PRIMARY KEY (category_id),
+    CONSTRAINT category_name_key UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS event (
+    event_id UUID NOT NULL,
+    title VARCHAR(255),
+    description VARCHAR(255),
+    categoryid UUID,
+    price NUMERIC(38, 2),
+    street VARCHAR(255),
+    city VARCHAR(255),
+    state VARCHAR(255),
+    zip_code VARCHAR(255),
+    country VARCHAR(255),
+    start_date_time TIMESTAMP(6),
+    capacity INTEGER,
+    organizerid UUID,
+    status VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    CONSTRAINT event_pkey PRIMARY KEY (event_id),
+    CONSTRAINT event_status_check CHECK (status IN ('ACTIVE', 'CANCELLED'))
+);
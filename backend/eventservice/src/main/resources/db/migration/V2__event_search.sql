@@ -0,0 +1,60 @@
+-- Full-text search over the title, category, city and description of events.
+-- search_vector is filled by triggers, so every write keeps it current: event
+-- inserts and updates compute it, a renamed or deleted category rewrites the
+-- vectors of its events. The 'simple' configuration does not stem, so prefix
+-- queries match the words as they are written.
+
+CREATE OR REPLACE FUNCTION event_search_vector(title TEXT, description TEXT, city TEXT, category TEXT)
+RETURNS TSVECTOR
+LANGUAGE SQL IMMUTABLE
+AS $$
+    SELECT setweight(to_tsvector('simple', COALESCE(title, '')), 'A')
+        || setweight(to_tsvector('simple', COALESCE(category, '')), 'B')
+        || setweight(to_tsvector('simple', COALESCE(city, '')), 'B')
+        || setweight(to_tsvector('simple', COALESCE(description, '')), 'C')
+$$;
+
+ALTER TABLE event ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE OR REPLACE FUNCTION event_search_vector_update()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    NEW.search_vector := event_search_vector(NEW.title, NEW.description, NEW.city,
+            (SELECT name FROM category WHERE category_id = NEW.categoryid));
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS event_search_vector_trigger ON event;
+
+CREATE TRIGGER event_search_vector_trigger
+    BEFORE INSERT OR UPDATE OF title, description, city, categoryid ON event
+    FOR EACH ROW EXECUTE FUNCTION event_search_vector_update();
+
+CREATE OR REPLACE FUNCTION category_search_vector_update()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        UPDATE event SET search_vector = event_search_vector(title, description, city, NULL)
+        WHERE categoryid = OLD.category_id;
+    ELSIF OLD.name IS DISTINCT FROM NEW.name THEN
+        UPDATE event SET search_vector = event_search_vector(title, description, city, NEW.name)
+        WHERE categoryid = NEW.category_id;
+    END IF;
+
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS category_search_vector_trigger ON category;
+
+CREATE TRIGGER category_search_vector_trigger
+    AFTER UPDATE OF name OR DELETE ON category
+    FOR EACH ROW EXECUTE FUNCTION category_search_vector_update();
+
+UPDATE event SET search_vector = event_search_vector(title, description, city,
+        (SELECT name FROM category WHERE category_id = event.categoryid));
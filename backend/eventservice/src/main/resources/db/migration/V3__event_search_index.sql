@@ -0,0 +1,5 @@
+-- Built concurrently so that existing event tables stay writable; Flyway runs
+-- this script outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_search_idx
+    ON event USING GIN (search_vector);
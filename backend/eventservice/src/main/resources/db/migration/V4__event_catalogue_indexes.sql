@@ -0,0 +1,23 @@
+-- Indexes of the keyset-paginated event catalogue (EventCatalogueRepository).
+-- Every index ends in (start_date_time, event_id), so a filtered page is read
+-- in catalogue order and stops after the page size; B-tree indexes are
+-- scanned backwards for the descending order. Price ranges are checked on the
+-- rows read through these indexes.
+--
+-- Built concurrently so that existing event tables stay writable; Flyway runs
+-- this script outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_start_idx
+    ON event (start_date_time, event_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_status_start_idx
+    ON event (status, start_date_time, event_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_city_start_idx
+    ON event (lower(city), start_date_time, event_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_organizer_start_idx
+    ON event (organizerid, start_date_time, event_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_category_start_idx
+    ON event (categoryid, start_date_time, event_id);
@@ -0,0 +1,4 @@
+-- Optimistic locking version of events, also the state identifier of their
+-- ETags. Existing events start at version 0.
+
+ALTER TABLE event ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
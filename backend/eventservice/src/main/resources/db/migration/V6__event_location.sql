@@ -0,0 +1,9 @@
+-- Optional WGS 84 location of events in degrees, for searches around a point.
+
+ALTER TABLE event ADD COLUMN IF NOT EXISTS latitude DOUBLE PRECISION;
+ALTER TABLE event ADD COLUMN IF NOT EXISTS longitude DOUBLE PRECISION;
+
+ALTER TABLE event ADD CONSTRAINT event_location_check CHECK (
+    (latitude IS NULL AND longitude IS NULL)
+    OR (latitude BETWEEN -90 AND 90 AND longitude BETWEEN -180 AND 180)
+);
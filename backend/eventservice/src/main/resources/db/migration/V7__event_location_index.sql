@@ -0,0 +1,10 @@
+-- Spatial index of event locations, using the built-in point type so that no
+-- extension is needed. Searches find the events in a latitude/longitude box
+-- through it and compute exact distances for those only.
+--
+-- Built concurrently so that existing event tables stay writable; Flyway runs
+-- this script outside a transaction.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS event_location_idx
+    ON event USING GIST (point(longitude, latitude))
+    WHERE latitude IS NOT NULL AND longitude IS NOT NULL;
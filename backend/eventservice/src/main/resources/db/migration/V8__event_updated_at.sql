@@ -0,0 +1,4 @@
+-- Last change of events. V1 creates it with the table, this adds it to event
+-- tables created by ddl-auto=update before the column existed.
+
+ALTER TABLE event ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
@@ -0,0 +1,90 @@
+package com.eventbooking.eventservice.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.eventbooking.eventservice.dto.EventDTO;
+import com.eventbooking.eventservice.dto.EventPageDTO;
+import com.eventbooking.eventservice.service.EventService;
+
+/**
+ * Checks the conditional requests of the event listing against a stubbed
+ * EventService.
+ */
+class EventControllerTest {
+    private static final List<EventDTO> EVENTS = List.of(
+            EventDTO.builder().id(UUID.randomUUID()).version(3L).categoryName("Music").build(),
+            EventDTO.builder().id(UUID.randomUUID()).version(1L).categoryName("Sports").build());
+
+    private final EventService eventService = mock(EventService.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        EventController controller = new EventController();
+
+        ReflectionTestUtils.setField(controller, "eventService", eventService);
+        ReflectionTestUtils.setField(controller, "maxPageLimit", 1000);
+        ReflectionTestUtils.setField(controller, "defaultPageLimit", 100);
+        ReflectionTestUtils.setField(controller, "cacheMaxAgeSeconds", 10L);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void lastPageIsNotModifiedForItsETag() throws Exception {
+        when(eventService.getEvents(any(), isNull(), any(), anyInt()))
+                .thenReturn(new EventPageDTO(EVENTS, null, null));
+
+        String eTag = mockMvc.perform(get("/api/events").param("cursor", "last-page"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).isNotNull();
+
+        mockMvc.perform(get("/api/events").param("cursor", "last-page").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void eTagCoversTheNextCursor() throws Exception {
+        when(eventService.getEvents(any(), isNull(), isNull(), anyInt()))
+                .thenReturn(new EventPageDTO(EVENTS, null, null));
+        when(eventService.getEvents(any(), isNull(), any(String.class), anyInt()))
+                .thenReturn(new EventPageDTO(EVENTS, "next-page", null));
+
+        String lastPage = mockMvc.perform(get("/api/events"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        String pageWithNext = mockMvc.perform(get("/api/events").param("cursor", "first-page"))
+                .andExpect(header().string("X-Next-Cursor", "next-page"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        assertThat(lastPage).isNotEqualTo(pageWithNext);
+    }
+}
@@ -0,0 +1,229 @@
+package com.eventbooking.eventservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.eventbooking.eventservice.model.Event;
+import com.eventbooking.eventservice.model.EventStatus;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the Flyway migrations against an embedded Postgres and checks that the
+ * catalogue pages are complete and in order, that filters apply, that
+ * location searches are ordered by distance and that both are read from an
+ * index.
+ */
+class EventCatalogueTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 20, 0);
+
+    private static final UUID ORGANIZER_ID = UUID.randomUUID();
+
+    private static final double PARIS_LATITUDE = 48.8566;
+
+    private static final double PARIS_LONGITUDE = 2.3522;
+
+    private static final UUID EIFFEL_TOWER_ID = UUID.randomUUID();
+
+    private static final UUID VERSAILLES_ID = UUID.randomUUID();
+
+    private static final UUID LONDON_ID = UUID.randomUUID();
+
+    private static EmbeddedPostgres postgres;
+
+    private static SingleConnectionDataSource dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private static EventCatalogueRepository eventCatalogueRepository;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = EmbeddedPostgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        eventCatalogueRepository = new EventCatalogueRepository(jdbcTemplate);
+
+        // Every tenth event shares its start date with the previous one, so
+        // pages also break between equal start dates
+        for (int i = 0; i < 1000; i++)
+            jdbcTemplate.update("INSERT INTO event (event_id, title, city, price, organizerid, status, " +
+                    "start_date_time, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, NOW())",
+                    UUID.randomUUID(), "Event " + i, i % 2 == 0 ? "Berlin" : "Paris", BigDecimal.valueOf(i % 100),
+                    i < 50 ? ORGANIZER_ID : UUID.randomUUID(), i % 5 == 0 ? "CANCELLED" : "ACTIVE",
+                    Timestamp.valueOf(START.plusDays(i - i % 10 / 9)));
+
+        insertLocatedEvent(EIFFEL_TOWER_ID, 48.8584, 2.2945);
+        insertLocatedEvent(VERSAILLES_ID, 48.8049, 2.1204);
+        insertLocatedEvent(LONDON_ID, 51.5074, -0.1278);
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    @Test
+    void pagesCoverEveryEventOnceInOrder() {
+        List<Event> events = readAll(new EventFilter(), 37);
+
+        assertThat(events).hasSize(1003);
+        assertThat(events).extracting(Event::getId).doesNotHaveDuplicates();
+
+        for (int i = 1; i < events.size(); i++) {
+            Event previous = events.get(i - 1);
+            Event event = events.get(i);
+
+            assertThat(previous.getStartDateTime()).isAfterOrEqualTo(event.getStartDateTime());
+
+            if (previous.getStartDateTime().equals(event.getStartDateTime()))
+                assertThat(previous.getId().toString()).isGreaterThan(event.getId().toString());
+        }
+    }
+
+    @Test
+    void firstPageStopsAtLimit() {
+        List<Event> events = eventCatalogueRepository.getPage(new EventFilter(), null, null, 100);
+
+        assertThat(events).hasSize(100);
+        assertThat(events).extracting(Event::getId).containsExactlyElementsOf(
+                readAll(new EventFilter(), 37).stream().limit(100).map(Event::getId).toList());
+    }
+
+    @Test
+    void appliesEveryFilter() {
+        EventFilter filter = EventFilter.builder()
+                .organizerID(ORGANIZER_ID)
+                .status(EventStatus.ACTIVE)
+                .startsFrom(START.plusDays(10))
+                .startsTo(START.plusDays(40))
+                .minPrice(BigDecimal.valueOf(20))
+                .maxPrice(BigDecimal.valueOf(35))
+                .city("BERLIN")
+                .build();
+
+        assertThat(readAll(filter, 3)).allSatisfy(event -> {
+            assertThat(event.getOrganizerID()).isEqualTo(ORGANIZER_ID);
+            assertThat(event.getStatus()).isEqualTo(EventStatus.ACTIVE);
+            assertThat(event.getStartDateTime()).isAfterOrEqualTo(START.plusDays(10)).isBefore(START.plusDays(40));
+            assertThat(event.getPrice()).isBetween(BigDecimal.valueOf(20), BigDecimal.valueOf(35));
+            assertThat(event.getCity()).isEqualTo("Berlin");
+        }).isNotEmpty();
+    }
+
+    @Test
+    void estimatesCountFromStatistics() {
+        assertThat(eventCatalogueRepository.estimateCount(new EventFilter())).isBetween(900L, 1100L);
+        assertThat(eventCatalogueRepository.estimateCount(EventFilter.builder().status(EventStatus.CANCELLED)
+                .build())).isBetween(150L, 250L);
+    }
+
+    @Test
+    void listsEventsWithinRadiusByDistance() {
+        List<NearbyEvent> nearby = eventCatalogueRepository.getNearby(new EventFilter(), PARIS_LATITUDE,
+                PARIS_LONGITUDE, GeoBox.around(PARIS_LATITUDE, PARIS_LONGITUDE, 50), 50.0, 10);
+
+        assertThat(nearby).extracting(found -> found.getEvent().getId())
+                .containsExactly(EIFFEL_TOWER_ID, VERSAILLES_ID);
+        assertThat(nearby.get(0).getDistanceKm()).isCloseTo(4.2, within(0.1));
+        assertThat(nearby.get(1).getDistanceKm()).isCloseTo(17.9, within(0.1));
+    }
+
+    @Test
+    void listsEventsInsideBoxByDistance() {
+        List<NearbyEvent> nearby = eventCatalogueRepository.getNearby(new EventFilter(), 51.5, -0.1,
+                GeoBox.parse("-1,48,3,52"), null, 10);
+
+        assertThat(nearby).extracting(found -> found.getEvent().getId())
+                .containsExactly(LONDON_ID, VERSAILLES_ID, EIFFEL_TOWER_ID);
+    }
+
+    @Test
+    void boxesAroundPolesAndAntimeridianCoverEveryLongitude() {
+        double radiusDegrees = Math.toDegrees(50 / GeoBox.EARTH_RADIUS_KM);
+
+        assertThat(GeoBox.around(89.9, 0, 50)).isEqualTo(new GeoBox(89.9 - radiusDegrees, -180, 90, 180));
+        assertThat(GeoBox.around(0, 179.9, 50).getMinLongitude()).isEqualTo(-180);
+
+        GeoBox paris = GeoBox.around(PARIS_LATITUDE, PARIS_LONGITUDE, 50);
+
+        assertThat(paris.getMaxLatitude() - paris.getMinLatitude()).isCloseTo(0.899, within(0.001));
+        assertThat(paris.getMaxLongitude() - paris.getMinLongitude()).isCloseTo(1.367, within(0.001));
+    }
+
+    @Test
+    void pagesUseIndex() {
+        jdbcTemplate.execute("SET enable_seqscan = off");
+
+        try {
+            assertIndexed("SELECT " + EventRowMapper.COLUMNS + " FROM event WHERE TRUE " +
+                    "AND (start_date_time, event_id) < (?, ?) ORDER BY start_date_time DESC, event_id DESC LIMIT 100",
+                    Timestamp.valueOf(START.plusDays(500)), UUID.randomUUID());
+
+            assertIndexed("SELECT " + EventRowMapper.COLUMNS + " FROM event WHERE TRUE AND status = ? " +
+                    "AND lower(city) = lower(?) AND start_date_time >= ? " +
+                    "ORDER BY start_date_time DESC, event_id DESC LIMIT 100",
+                    "ACTIVE", "Berlin", Timestamp.valueOf(START));
+
+            assertIndexed("SELECT " + EventRowMapper.COLUMNS + " FROM event WHERE latitude IS NOT NULL " +
+                    "AND longitude IS NOT NULL AND point(longitude, latitude) <@ box(point(?, ?), point(?, ?))",
+                    1.0, 48.0, 3.0, 49.0);
+        } finally {
+            jdbcTemplate.execute("SET enable_seqscan = on");
+        }
+    }
+
+    private static void insertLocatedEvent(UUID eventID, double latitude, double longitude) {
+        jdbcTemplate.update("INSERT INTO event (event_id, title, latitude, longitude, status, start_date_time, " +
+                "created_at) VALUES (?, 'Located event', ?, ?, 'ACTIVE', ?, NOW())",
+                eventID, latitude, longitude, Timestamp.valueOf(START));
+    }
+
+    private static List<Event> readAll(EventFilter filter, int limit) {
+        List<Event> events = new ArrayList<>();
+        List<Event> page = eventCatalogueRepository.getPage(filter, null, null, limit);
+
+        while (!page.isEmpty()) {
+            events.addAll(page);
+
+            Event last = page.get(page.size() - 1);
+            page = eventCatalogueRepository.getPage(filter, last.getStartDateTime(), last.getId(), limit);
+        }
+
+        return events;
+    }
+
+    private static void assertIndexed(String sql, Object... parameters) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters);
+
+        assertThat(plan)
+                .as("Query plan of %s", sql)
+                .noneMatch(line -> line.contains("Seq Scan"));
+    }
+}
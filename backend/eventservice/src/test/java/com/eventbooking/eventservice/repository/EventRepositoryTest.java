@@ -0,0 +1,114 @@
+package com.eventbooking.eventservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.eventbooking.eventservice.model.Category;
+import com.eventbooking.eventservice.model.Event;
+import com.eventbooking.eventservice.model.EventStatus;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the Flyway migrations against an embedded Postgres, with Hibernate
+ * validating the entities against them, and reads events back with the name
+ * of their category.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EventRepositoryTest {
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @DynamicPropertySource
+    static void dataSourceProperties(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void readsEveryFieldAndTheCategoryName() {
+        Category category = entityManager.persist(Category.builder().name("Music").build());
+        Event event = entityManager.persistFlushFind(Event.builder()
+                .title("Open Air")
+                .description("Three stages by the lake")
+                .categoryID(category.getId())
+                .price(new BigDecimal("49.90"))
+                .street("Seestrasse 1")
+                .city("Zurich")
+                .state("ZH")
+                .zipCode("8002")
+                .country("Switzerland")
+                .latitude(47.3544)
+                .longitude(8.5361)
+                .startDateTime(LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.MICROS))
+                .capacity(5000)
+                .organizerID(UUID.randomUUID())
+                .status(EventStatus.ACTIVE)
+                .build());
+        entityManager.clear();
+
+        EventWithCategory found = eventRepository.findWithCategoryName(event.getId()).orElseThrow();
+
+        assertThat(found.getCategoryName()).isEqualTo("Music");
+        // The database keeps timestamps to the microsecond
+        assertThat(found.getEvent()).usingRecursiveComparison()
+                .ignoringFields("createdAt", "updatedAt")
+                .isEqualTo(event);
+        assertThat(found.getEvent().getCreatedAt()).isCloseTo(event.getCreatedAt(), within(1, ChronoUnit.MICROS));
+        assertThat(found.getEvent().getUpdatedAt()).isCloseTo(event.getUpdatedAt(), within(1, ChronoUnit.MICROS));
+        assertThat(found.getEvent().getVersion()).isNotNull();
+    }
+
+    @Test
+    void readsEventsWithoutCategory() {
+        Event event = entityManager.persistFlushFind(Event.builder()
+                .title("Meetup")
+                .categoryID(UUID.randomUUID())
+                .price(BigDecimal.ZERO)
+                .startDateTime(LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS))
+                .capacity(20)
+                .organizerID(UUID.randomUUID())
+                .status(EventStatus.ACTIVE)
+                .build());
+        entityManager.clear();
+
+        EventWithCategory found = eventRepository.findWithCategoryName(event.getId()).orElseThrow();
+
+        assertThat(found.getCategoryName()).isNull();
+        assertThat(found.getEvent().getId()).isEqualTo(event.getId());
+    }
+
+    @Test
+    void findsNothingForUnknownEvents() {
+        assertThat(eventRepository.findWithCategoryName(UUID.randomUUID())).isEmpty();
+    }
+}
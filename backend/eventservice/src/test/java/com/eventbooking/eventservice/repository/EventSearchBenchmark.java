@@ -0,0 +1,121 @@
+package com.eventbooking.eventservice.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.eventbooking.eventservice.model.Event;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Search latency over 1M events in an embedded Postgres: the former
+ * {@code title LIKE %search%} query, which scans the table and returns every
+ * match, against the ranked full-text search of {@link EventSearchRepository}.
+ * "jazz" is a common word (one title in 20), the number is a single event.
+ *
+ * Not part of the test run. Start it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.eventbooking.eventservice.repository.EventSearchBenchmark}
+ * and compare the scores per search term. Loading the events takes a few
+ * minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSearchBenchmark {
+    private static final int EVENTS = 1_000_000;
+
+    @Param({ "jazz", "424242" })
+    private String search;
+
+    private EmbeddedPostgres postgres;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private EventSearchRepository eventSearchRepository;
+
+    @Setup
+    public void setUp() throws Exception {
+        postgres = EmbeddedPostgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        eventSearchRepository = new EventSearchRepository(jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO category (category_id, name, created_at) " +
+                "SELECT md5(name)::uuid, name, NOW() FROM unnest(ARRAY['CONCERT', 'THEATER', 'SPORTS', " +
+                "'EXHIBITION', 'FESTIVAL', 'WORKSHOP', 'SEMINAR', 'CONFERENCE', 'MEETUP', 'OTHER']) name");
+
+        jdbcTemplate.update("INSERT INTO event (event_id, title, description, categoryid, price, street, city, " +
+                "state, zip_code, country, start_date_time, capacity, organizerid, status, created_at) " +
+                "SELECT md5('event' || i)::uuid, " +
+                "(ARRAY['jazz', 'rock', 'opera', 'techno', 'folk', 'blues', 'metal', 'swing', 'soul', 'punk', " +
+                "'indie', 'choir', 'piano', 'violin', 'drum', 'comedy', 'ballet', 'poetry', 'film', 'chess'])" +
+                "[1 + i % 20] || ' night ' || i, " +
+                "'Live evening number ' || i || ' with guests', " +
+                "(SELECT category_id FROM category ORDER BY name OFFSET i % 10 LIMIT 1), " +
+                "10 + i % 90, 'Main St ' || i % 1000, " +
+                "(ARRAY['New York', 'London', 'Paris', 'Berlin', 'Tokyo', 'Madrid', 'Rome', 'Vienna'])[1 + i % 8], " +
+                "'ST', '10001', 'USA', NOW() + (i % 365) * INTERVAL '1 day', 100, " +
+                "md5('organizer' || i % 1000)::uuid, 'ACTIVE', NOW() " +
+                "FROM generate_series(1, ?) i", EVENTS);
+
+        jdbcTemplate.execute("VACUUM ANALYZE event");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    @Benchmark
+    public List<Event> titleLike() {
+        return jdbcTemplate.query("SELECT " + EventRowMapper.COLUMNS + " FROM event WHERE title LIKE ? " +
+                "ORDER BY start_date_time DESC", new EventRowMapper(), "%" + search + "%");
+    }
+
+    @Benchmark
+    public List<Event> fullText() {
+        return eventSearchRepository.search(search, new EventFilter(), 200);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(EventSearchBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,154 @@
+package com.eventbooking.eventservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.eventbooking.eventservice.model.Event;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the Flyway migrations against an embedded Postgres and checks that the
+ * search triggers keep search_vector current and that searches are answered
+ * from the GIN index.
+ */
+class EventSearchTest {
+    private static final UUID CONCERT_ID = UUID.randomUUID();
+
+    private static final UUID ORGANIZER_ID = UUID.randomUUID();
+
+    private static EmbeddedPostgres postgres;
+
+    private static SingleConnectionDataSource dataSource;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private static EventSearchRepository eventSearchRepository;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres = EmbeddedPostgres.start();
+
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl("postgres", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        eventSearchRepository = new EventSearchRepository(jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO category (category_id, name, created_at) VALUES (?, 'CONCERT', NOW())",
+                CONCERT_ID);
+
+        for (int i = 0; i < 1000; i++)
+            insertEvent("Event " + i, "Description " + i, "Springfield", null, UUID.randomUUID());
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        dataSource.destroy();
+        postgres.close();
+    }
+
+    @Test
+    void matchesWordPrefixesOfEveryField() {
+        UUID eventID = insertEvent("Midnight Jazz", "Saxophone quartet", "New Orleans", CONCERT_ID, ORGANIZER_ID);
+
+        assertThat(search("jaz")).containsExactly(eventID);
+        assertThat(search("midnight SAX")).containsExactly(eventID);
+        assertThat(search("orlea")).containsExactly(eventID);
+        assertThat(search("concert")).containsExactly(eventID);
+        assertThat(search("jazz rock")).isEmpty();
+        assertThat(search("  !? ")).isEmpty();
+    }
+
+    @Test
+    void ranksTitleMatchesFirst() {
+        UUID inDescription = insertEvent("Evening show", "Opera arias", "Vienna", null, ORGANIZER_ID);
+        UUID inTitle = insertEvent("Opera gala", "Evening show", "Vienna", null, ORGANIZER_ID);
+
+        assertThat(eventSearchRepository.search("opera", organizerFilter(), 10))
+                .extracting(Event::getId)
+                .containsExactly(inTitle, inDescription);
+    }
+
+    @Test
+    void followsUpdatesAndCategoryRenames() {
+        UUID categoryID = UUID.randomUUID();
+
+        jdbcTemplate.update("INSERT INTO category (category_id, name, created_at) VALUES (?, 'WORKSHOP', NOW())",
+                categoryID);
+
+        UUID eventID = insertEvent("Pottery basics", "Hands on", "Leeds", categoryID, ORGANIZER_ID);
+
+        jdbcTemplate.update("UPDATE event SET title = 'Ceramics basics' WHERE event_id = ?", eventID);
+        jdbcTemplate.update("UPDATE category SET name = 'CLASS' WHERE category_id = ?", categoryID);
+
+        assertThat(search("pottery")).isEmpty();
+        assertThat(search("ceramics class")).containsExactly(eventID);
+
+        jdbcTemplate.update("DELETE FROM category WHERE category_id = ?", categoryID);
+
+        assertThat(search("ceramics class")).isEmpty();
+    }
+
+    @Test
+    void searchUsesIndex() {
+        jdbcTemplate.execute("SET enable_seqscan = off");
+
+        try {
+            List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT " + EventRowMapper.COLUMNS +
+                    " FROM event, to_tsquery('simple', 'jazz:*') search_query WHERE search_vector @@ search_query " +
+                    "ORDER BY ts_rank(search_vector, search_query) DESC, start_date_time DESC, event_id LIMIT 200",
+                    String.class);
+
+            assertThat(plan).anyMatch(line -> line.contains("event_search_idx"));
+        } finally {
+            jdbcTemplate.execute("SET enable_seqscan = on");
+        }
+    }
+
+    @Test
+    void buildsPrefixQueries() {
+        assertThat(EventSearchRepository.toPrefixQuery("Jazz  new-yo")).isEqualTo("jazz:* & new:* & yo:*");
+        assertThat(EventSearchRepository.toPrefixQuery("a:*|b'")).isEqualTo("a:* & b:*");
+        assertThat(EventSearchRepository.toPrefixQuery(" & ")).isNull();
+    }
+
+    private static List<UUID> search(String search) {
+        return eventSearchRepository.search(search, organizerFilter(), 10)
+                .stream()
+                .map(Event::getId)
+                .toList();
+    }
+
+    private static EventFilter organizerFilter() {
+        return EventFilter.builder().organizerID(ORGANIZER_ID).build();
+    }
+
+    private static UUID insertEvent(String title, String description, String city, UUID categoryID,
+            UUID organizerID) {
+        UUID eventID = UUID.randomUUID();
+
+        jdbcTemplate.update("INSERT INTO event (event_id, title, description, city, categoryid, organizerid, " +
+                "status, start_date_time, created_at) VALUES (?, ?, ?, ?, ?, ?, 'ACTIVE', NOW(), NOW())",
+                eventID, title, description, city, categoryID, organizerID);
+
+        return eventID;
+    }
+}
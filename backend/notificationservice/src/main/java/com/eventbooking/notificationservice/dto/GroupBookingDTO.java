@@ -0,0 +1,25 @@
+package com.eventbooking.notificationservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupBookingDTO {
+    private UUID id;
+
+    private UUID userID;
+    private UUID eventID;
+
+    private BigDecimal totalPrice;
+
+    private List<BookingDTO> bookings;
+}
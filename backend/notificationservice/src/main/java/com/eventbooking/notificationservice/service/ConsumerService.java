@@ -1,7 +1,5 @@
 package com.eventbooking.notificationservice.service;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -9,16 +7,18 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
+import com.eventbooking.common.event.EventBatchLoader;
 import com.eventbooking.notificationservice.dto.BookingDTO;
 import com.eventbooking.notificationservice.dto.EventDTO;
+import com.eventbooking.notificationservice.dto.GroupBookingDTO;
 import com.eventbooking.notificationservice.dto.ReviewDTO;
 import com.eventbooking.notificationservice.model.Notification;
 import com.eventbooking.notificationservice.repository.NotificationRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -28,15 +28,10 @@ public class ConsumerService {
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private EventBatchLoader<EventDTO> eventBatchLoader;
 
     private EventDTO getEventDetails(UUID eventID) {
-        EventDTO event = webClientBuilder.build()
-                .get()
-                .uri("http://eventservice:8080/api/events/" + eventID)
-                .retrieve()
-                .bodyToMono(EventDTO.class)
-                .block();
+        EventDTO event = Mono.fromFuture(eventBatchLoader.load(eventID)).block();
 
         return event;
     }
@@ -59,6 +54,25 @@ public class ConsumerService {
         log.info("Notification created for booking ID: {}", bookingDTO.getId());
     }
 
+    @KafkaListener(topics = "GroupBookingCreated", groupId = "NotificationServiceConsumer")
+    public void processGroupBooking(GroupBookingDTO groupBookingDTO) {
+        log.info("Log message - recieved from GroupBookingCreated topic: {} ", groupBookingDTO.toString());
+
+        Notification notification = new Notification();
+
+        notification.setTitle("Group Booking Created");
+        notification.setMessage("Your group booking of " + groupBookingDTO.getBookings().size()
+                + " seats has been created successfully.");
+
+        notification.setUserID(groupBookingDTO.getUserID());
+
+        notification.setBookingID(groupBookingDTO.getId());
+
+        notificationRepository.save(notification);
+
+        log.info("Notification created for group booking ID: {}", groupBookingDTO.getId());
+    }
+
     @KafkaListener(topics = "BookingCancelled", groupId = "NotificationServiceConsumer")
     public void processBookingCancelled(BookingDTO bookingDTO) {
         log.info("Log message - recieved from BookingCancelled topic: {} ", bookingDTO.toString());
@@ -78,12 +92,12 @@ public class ConsumerService {
     }
 
     @KafkaListener(topics = "EventBookingsCancelled", groupId = "NotificationServiceConsumer")
-    public void processEventBookingsCancelled(ArrayList<LinkedHashMap<String, Object>> bookingDTOs) {
+    public void processEventBookingsCancelled(List<BookingDTO> bookingDTOs) {
         log.info("Log message - recieved from EventBookingsCancelled topic: {} ", bookingDTOs.toString());
 
-        for (LinkedHashMap<String, Object> bookingDTOMap : bookingDTOs) {
-            UUID bookingID = UUID.fromString(bookingDTOMap.get("id").toString());
-            UUID userID = UUID.fromString(bookingDTOMap.get("userID").toString());
+        for (BookingDTO bookingDTO : bookingDTOs) {
+            UUID bookingID = bookingDTO.getId();
+            UUID userID = bookingDTO.getUserID();
 
             Notification notification = new Notification();
 
@@ -99,13 +113,13 @@ public class ConsumerService {
     }
 
     @KafkaListener(topics = "EventUpdatedBookings", groupId = "NotificationServiceConsumer")
-    public void processEventUpdatedBookings(ArrayList<LinkedHashMap<String, Object>> bookingDTOs) {
+    public void processEventUpdatedBookings(List<BookingDTO> bookingDTOs) {
         log.info("Log message - recieved from EventUpdatedBookings topic: {} ", bookingDTOs.toString());
 
-        UUID eventID = UUID.fromString(bookingDTOs.get(0).get("eventID").toString());
+        UUID eventID = bookingDTOs.get(0).getEventID();
 
         List<UUID> userIDs = bookingDTOs.stream()
-                .map(bookingDTOMap -> UUID.fromString(bookingDTOMap.get("userID").toString()))
+                .map(BookingDTO::getUserID)
                 .distinct()
                 .collect(Collectors.toList());
 
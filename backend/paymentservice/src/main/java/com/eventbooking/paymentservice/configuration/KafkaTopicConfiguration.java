@@ -1,15 +1,19 @@
 package com.eventbooking.paymentservice.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 public class KafkaTopicConfiguration {
+    // Payments are keyed by the booking or group ID they settle
+    @Value("${payment.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic PaymentCreatedTopicCreation() {
-        return TopicBuilder.name("PaymentCreated").build();
+        return TopicBuilder.name("PaymentCreated").partitions(partitions).build();
     }
 }
@@ -16,4 +16,13 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID> {
     List<Payment> findByUserID(UUID userId);
 
     List<Payment> findByBookingID(UUID bookingId);
+
+    /**
+     * Serializes the charges of a user until the end of the transaction.
+     * Bookings are consumed from several partitions at once, two charges of
+     * the same user must not both pass the balance check.
+     */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended(CAST(?1 AS TEXT), 0))) " +
+            "user_lock", nativeQuery = true)
+    long lockUser(UUID userId);
 }
@@ -1,16 +1,17 @@
 package com.eventbooking.paymentservice.service;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.eventbooking.paymentservice.dto.BookingDTO;
+import com.eventbooking.paymentservice.dto.GroupBookingDTO;
 import com.eventbooking.paymentservice.dto.PaymentDTO;
 import com.eventbooking.paymentservice.model.Payment;
 import com.eventbooking.paymentservice.model.PaymentStatus;
@@ -28,27 +29,70 @@ public class ConsumerService {
 
     private final KafkaTemplate<String, PaymentDTO> kafkaTemplate;
 
+    private final TransactionTemplate transactionTemplate;
+
     @KafkaListener(topics = "BookingCreated", groupId = "PaymentServiceConsumer")
     public void processBooking(BookingDTO bookingDTO) {
         log.info("Log message - recieved from Booking Created topic: {} ", bookingDTO.toString());
 
-        Payment payment = new Payment();
+        chargeBooking(bookingDTO.getId(), bookingDTO.getUserID(), bookingDTO.getPrice());
+    }
 
-        payment.setAmount(bookingDTO.getPrice().negate());
-        payment.setBookingID(bookingDTO.getId());
-        payment.setUserID(bookingDTO.getUserID());
+    // A group booking is charged once for all of its bookings, the payment
+    // carries the group ID as its booking ID
+    @KafkaListener(topics = "GroupBookingCreated", groupId = "PaymentServiceConsumer")
+    public void processGroupBooking(GroupBookingDTO groupBookingDTO) {
+        log.info("Log message - recieved from GroupBookingCreated topic: {} ", groupBookingDTO.toString());
 
-        BigDecimal balance = paymentRepository.getUserBalance(bookingDTO.getUserID());
+        chargeBooking(groupBookingDTO.getId(), groupBookingDTO.getUserID(), groupBookingDTO.getTotalPrice());
+    }
 
-        if (balance != null && balance.compareTo(bookingDTO.getPrice()) >= 0) {
-            payment.setStatus(PaymentStatus.APPROVED);
-            paymentRepository.save(payment);
-            log.info("Payment successful for booking ID: {}", bookingDTO.getId());
-        } else {
-            payment.setStatus(PaymentStatus.REJECTED);
-            paymentRepository.save(payment);
-            log.error("Payment failed for booking ID: {}. Insufficient balance.", bookingDTO.getId());
+    // Bookings that expired before their payment was settled are refunded the
+    // same way. BookingRefundDue comes from the booking service when a payment
+    // was approved for a booking that had already been cancelled or expired,
+    // since the cancellation may have been consumed before the charge was made
+    @KafkaListener(topics = { "BookingCancelled", "BookingExpired", "BookingRefundDue" },
+            groupId = "PaymentServiceConsumer")
+    public void processBookingCancellation(BookingDTO bookingDTO) {
+        log.info("Log message - recieved from order topic: {} ", bookingDTO.toString());
+
+        refundBooking(bookingDTO.getId(), bookingDTO.getGroupID(), bookingDTO.getUserID(), bookingDTO.getPrice());
+    }
+
+    @KafkaListener(topics = "EventBookingsCancelled", groupId = "PaymentServiceConsumer")
+    public void processEventBookingsCancelled(List<BookingDTO> bookingDTOs) {
+        log.info("Log message - recieved from EventBookingsCancelled topic: {} ", bookingDTOs.toString());
+
+        for (BookingDTO bookingDTO : bookingDTOs) {
+            log.info("Booking ID: {}", bookingDTO.getId());
+
+            refundBooking(bookingDTO.getId(), bookingDTO.getGroupID(), bookingDTO.getUserID(), bookingDTO.getPrice());
         }
+    }
+
+    private void chargeBooking(UUID bookingID, UUID userID, BigDecimal price) {
+        Payment payment = new Payment();
+
+        payment.setAmount(price.negate());
+        payment.setBookingID(bookingID);
+        payment.setUserID(userID);
+
+        // The payment is committed before it is announced to the booking service
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentRepository.lockUser(userID);
+
+            BigDecimal balance = paymentRepository.getUserBalance(userID);
+
+            if (balance != null && balance.compareTo(price) >= 0) {
+                payment.setStatus(PaymentStatus.APPROVED);
+                paymentRepository.save(payment);
+                log.info("Payment successful for booking ID: {}", bookingID);
+            } else {
+                payment.setStatus(PaymentStatus.REJECTED);
+                paymentRepository.save(payment);
+                log.error("Payment failed for booking ID: {}. Insufficient balance.", bookingID);
+            }
+        });
 
         PaymentDTO paymentDTO = new PaymentDTO();
         paymentDTO.setId(payment.getId());
@@ -59,16 +103,18 @@ public class ConsumerService {
         paymentDTO.setCreatedAt(payment.getCreatedAt());
 
         // Send payment status to the booking service
-        kafkaTemplate.send("PaymentCreated", paymentDTO);
+        kafkaTemplate.send("PaymentCreated", bookingID.toString(), paymentDTO);
 
         log.info("Log message - sent to payment topic: {} ", paymentDTO.toString());
     }
 
-    @KafkaListener(topics = "BookingCancelled", groupId = "PaymentServiceConsumer")
-    public void processBookingCancellation(BookingDTO bookingDTO) {
-        log.info("Log message - recieved from order topic: {} ", bookingDTO.toString());
+    private void refundBooking(UUID bookingID, UUID groupID, UUID userID, BigDecimal price) {
+        if (groupID != null) {
+            refundGroupMember(bookingID, groupID, userID, price);
+            return;
+        }
 
-        Payment payment = paymentRepository.findByBookingID(bookingDTO.getId())
+        Payment payment = paymentRepository.findByBookingID(bookingID)
                 .stream()
                 .filter(p -> p.getStatus() == PaymentStatus.APPROVED)
                 .findFirst()
@@ -77,34 +123,33 @@ public class ConsumerService {
         if (payment != null && payment.getStatus() == PaymentStatus.APPROVED) {
             payment.setStatus(PaymentStatus.REFUNDED);
             paymentRepository.save(payment);
-            log.info("Payment cancelled for booking ID: {}", bookingDTO.getId());
+            log.info("Payment cancelled for booking ID: {}", bookingID);
         } else {
-            log.error("Payment not found or already cancelled for booking ID: {}", bookingDTO.getId());
+            log.error("Payment not found or already cancelled for booking ID: {}", bookingID);
         }
     }
 
-    @KafkaListener(topics = "EventBookingsCancelled", groupId = "PaymentServiceConsumer")
-    public void processEventBookingsCancelled(ArrayList<LinkedHashMap<String, Object>> bookingDTOs) {
-        log.info("Log message - recieved from EventBookingsCancelled topic: {} ", bookingDTOs.toString());
+    // The group payment stays as it is, the booking's share is credited back
+    // with a payment of its own
+    private void refundGroupMember(UUID bookingID, UUID groupID, UUID userID, BigDecimal price) {
+        boolean groupPaid = paymentRepository.findByBookingID(groupID)
+                .stream()
+                .anyMatch(p -> p.getStatus() == PaymentStatus.APPROVED);
 
-        for (LinkedHashMap<String, Object> bookingDTOMap : bookingDTOs) {
-            UUID bookingID = UUID.fromString(bookingDTOMap.get("id").toString());
+        if (!groupPaid || !paymentRepository.findByBookingID(bookingID).isEmpty()) {
+            log.error("Payment not found or already cancelled for booking ID: {}", bookingID);
+            return;
+        }
 
-            log.info("Booking ID: {}", bookingID);
+        Payment refund = Payment.builder()
+                .amount(price)
+                .bookingID(bookingID)
+                .userID(userID)
+                .status(PaymentStatus.APPROVED)
+                .build();
 
-            Payment payment = paymentRepository.findByBookingID(bookingID)
-                    .stream()
-                    .filter(p -> p.getStatus() == PaymentStatus.APPROVED)
-                    .findFirst()
-                    .orElse(null);
+        paymentRepository.save(refund);
 
-            if (payment != null && payment.getStatus() == PaymentStatus.APPROVED) {
-                payment.setStatus(PaymentStatus.REFUNDED);
-                paymentRepository.save(payment);
-                log.info("Payment cancelled for booking ID: {}", bookingID);
-            } else {
-                log.error("Payment not found or already cancelled for booking ID: {}", bookingID);
-            }
-        }
+        log.info("Payment refunded for booking ID: {} of group ID: {}", bookingID, groupID);
     }
 }
@@ -0,0 +1,23 @@
+package com.eventbooking.reviewservice.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.eventbooking.common.event.EventBatchLoader;
+import com.eventbooking.reviewservice.dto.EventDTO;
+
+@Configuration
+public class EventBatchConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public EventBatchLoader<EventDTO> eventBatchLoader(
+            WebClient.Builder webClientBuilder,
+            @Value("${review.event-batch.service-token:}") String serviceToken,
+            @Value("${review.event-batch.window-ms:5}") long windowMillis,
+            @Value("${review.event-batch.max-size:100}") int maxBatchSize) {
+        return new EventBatchLoader<>(webClientBuilder, EventDTO.class, EventDTO::getId, serviceToken, windowMillis,
+                maxBatchSize);
+    }
+}
@@ -1,14 +1,19 @@
 package com.eventbooking.reviewservice.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 public class KafkaTopicConfiguration {
+    // Reviews are keyed by event ID, the reviews of one event stay in order
+    @Value("${review.kafka.partitions:6}")
+    private int partitions;
+
     @Bean
     public NewTopic ReviewCreatedTopicCreation() {
-        return TopicBuilder.name("ReviewCreated").build();
+        return TopicBuilder.name("ReviewCreated").partitions(partitions).build();
     }
 }
@@ -64,7 +64,7 @@ public class ReviewService {
 
         reviewDTO = mapToReviewDTO(review);
 
-        kafkaTemplate.send("ReviewCreated", reviewDTO);
+        kafkaTemplate.send("ReviewCreated", eventID.toString(), reviewDTO);
 
         log.info("Review {} is added to the Database", review.getId());
 
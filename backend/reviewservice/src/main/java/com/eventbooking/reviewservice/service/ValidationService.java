@@ -7,12 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.eventbooking.common.event.EventBatchLoader;
 import com.eventbooking.reviewservice.dto.BookingDTO;
 import com.eventbooking.reviewservice.dto.EventDTO;
 import com.eventbooking.reviewservice.dto.ReviewDTO;
 import com.eventbooking.reviewservice.repository.ReviewRepository;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -23,14 +25,11 @@ public class ValidationService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private EventBatchLoader<EventDTO> eventBatchLoader;
+
     public EventDTO getEventDetails(UUID eventID) {
-        EventDTO event = webClientBuilder
-                .build()
-                .get()
-                .uri("http://eventservice:8080/api/events/{eventID}", eventID)
-                .retrieve()
-                .bodyToMono(EventDTO.class)
-                .block();
+        EventDTO event = Mono.fromFuture(eventBatchLoader.load(eventID)).block();
 
         return event;
     }
@@ -38,4 +38,18 @@ apiClient.interceptors.response.use(
   }
 );
 
+// Lists are served in pages, the cursor of the next page comes in the X-Next-Cursor header
+export async function getAllPages(url, config = {}) {
+  const items = [];
+  let cursor = null;
+  do {
+    const params = { ...config.params };
+    if (cursor) params.cursor = cursor;
+    const response = await apiClient.get(url, { ...config, params });
+    if (Array.isArray(response.data)) items.push(...response.data);
+    cursor = response.headers['x-next-cursor'];
+  } while (cursor);
+  return items;
+}
+
 export default apiClient;
\ No newline at end of file